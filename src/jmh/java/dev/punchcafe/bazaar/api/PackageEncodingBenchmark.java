@@ -0,0 +1,95 @@
+package dev.punchcafe.bazaar.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.punchcafe.bazaar.api.schema.ListPackageResponse;
+import dev.punchcafe.bazaar.api.schema.PackageResource;
+import dev.punchcafe.bazaar.benchmarks.BenchmarkFixtures;
+import dev.punchcafe.bazaar.config.HttpMessageConverterConfiguration;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks writing and reading a page of packages in each of the API's encodings. Products are drawn from
+ * a pool of popular products, so product IDs repeat across the page as they do on a storefront.
+ * The encoded size of the page in each encoding is printed on setting up each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PackageEncodingBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+    private static final int POPULAR_PRODUCTS = 200;
+
+    public enum Encoding {
+        JSON,
+        CBOR,
+        SMILE;
+
+        JsonFactory factory() {
+            return switch(this) {
+                case JSON -> new JsonFactory();
+                case CBOR -> HttpMessageConverterConfiguration.cborFactory();
+                case SMILE -> HttpMessageConverterConfiguration.smileFactory();
+            };
+        }
+    }
+
+    @Param({"JSON", "CBOR", "SMILE"})
+    public Encoding encoding;
+
+    @Param({"10", "100"})
+    public int pageSize;
+
+    @Param({"10", "50"})
+    public int productsPerPackage;
+
+    private ObjectMapper objectMapper;
+    private ListPackageResponse page;
+    private byte[] encodedPage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final var catalog = BenchmarkFixtures.catalog(CATALOG_SIZE);
+        this.objectMapper = new ObjectMapper(this.encoding.factory());
+
+        final var packages = new ArrayList<PackageResource>(this.pageSize);
+        for(int i = 0; i < this.pageSize; i++) {
+            packages.add(PackageResource.builder()
+                    .id(i)
+                    .name("Package " + i)
+                    .description("Benchmark package")
+                    .productIds(BenchmarkFixtures.productIds(
+                            catalog, (i * this.productsPerPackage) % POPULAR_PRODUCTS, this.productsPerPackage))
+                    .totalPrice(1234.56f)
+                    .currency("GBP")
+                    .build());
+        }
+        this.page = ListPackageResponse.builder()
+                .packages(packages)
+                .pageSize(this.pageSize)
+                .nextCursor("MTAw")
+                .build();
+        this.encodedPage = this.objectMapper.writeValueAsBytes(this.page);
+        System.out.printf(
+                "%n%s encodes %d packages of %d products in %d bytes%n",
+                this.encoding, this.pageSize, this.productsPerPackage, this.encodedPage.length);
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        return this.objectMapper.writeValueAsBytes(this.page);
+    }
+
+    @Benchmark
+    public ListPackageResponse read() throws IOException {
+        return this.objectMapper.readValue(this.encodedPage, ListPackageResponse.class);
+    }
+}
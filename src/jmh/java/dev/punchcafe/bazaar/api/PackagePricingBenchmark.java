@@ -0,0 +1,80 @@
+package dev.punchcafe.bazaar.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.punchcafe.bazaar.api.schema.PackageResource;
+import dev.punchcafe.bazaar.benchmarks.BenchmarkFixtures;
+import dev.punchcafe.bazaar.config.ApiConfiguration;
+import dev.punchcafe.bazaar.config.PackageCacheConfiguration;
+import dev.punchcafe.bazaar.currency.CurrencyService;
+import dev.punchcafe.bazaar.metrics.RequestStages;
+import dev.punchcafe.bazaar.packages.Package;
+import dev.punchcafe.bazaar.packages.PackagePriceIndex;
+import dev.punchcafe.bazaar.products.ProductService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks rendering packages into priced API resources, with the product and currency
+ * caches stubbed out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PackagePricingBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+
+    @Param({"1", "10", "50"})
+    public int productsPerPackage;
+
+    @Param({"10", "50"})
+    public int pageSize;
+
+    @Param({"USD", "GBP", "gbp"})
+    public String currency;
+
+    private PackageController controller;
+    private List<Package> page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final var catalog = BenchmarkFixtures.catalog(CATALOG_SIZE);
+        final var productService = new ProductService(BenchmarkFixtures.stubProductsCache(catalog));
+        final var currencyService = new CurrencyService(BenchmarkFixtures.stubCurrencyRatesCache(BenchmarkFixtures.rates()));
+        this.controller = new PackageController(
+                new ApiConfiguration(),
+                null,
+                productService,
+                currencyService,
+                new PackagePriceIndex(productService, new PackageCacheConfiguration(), new SimpleMeterRegistry()),
+                new ObjectMapper(),
+                new RequestStages(new SimpleMeterRegistry()),
+                null);
+
+        this.page = new ArrayList<>(this.pageSize);
+        for(int i = 0; i < this.pageSize; i++) {
+            this.page.add(Package.builder()
+                    .id(i)
+                    .name("Package " + i)
+                    .description("Benchmark package")
+                    .productIds(BenchmarkFixtures.productIds(catalog, i * this.productsPerPackage, this.productsPerPackage))
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public List<PackageResource> pricePage() {
+        final var resources = new ArrayList<PackageResource>(this.page.size());
+        for(final var pkg : this.page) {
+            resources.add(this.controller.convertModelToApiResource(pkg, this.currency));
+        }
+        return resources;
+    }
+}
@@ -0,0 +1,130 @@
+package dev.punchcafe.bazaar.benchmarks;
+
+import dev.punchcafe.bazaar.BazaarBundlesApplication;
+import dev.punchcafe.bazaar.config.GatewayConfig;
+import dev.punchcafe.bazaar.currency.CurrencyApiResponse;
+import dev.punchcafe.bazaar.currency.CurrencyRates;
+import dev.punchcafe.bazaar.currency.CurrencyRatesCache;
+import dev.punchcafe.bazaar.products.Product;
+import dev.punchcafe.bazaar.products.ProductCatalog;
+import dev.punchcafe.bazaar.products.ProductsCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Shared set up for the benchmarks: a synthetic product catalog and rates table, stub caches serving
+ * them (so benchmarks never call the real upstreams), and an application context against a fresh H2 database.
+ */
+public final class BenchmarkFixtures {
+
+    private static final String ID_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+
+    private BenchmarkFixtures() {}
+
+    /**
+     * @param size the number of products in the catalog
+     * @return a deterministic catalog of products with 12 character alphanumeric IDs
+     */
+    public static ProductCatalog catalog(final int size) {
+        final var random = new Random(42);
+        final var products = new HashMap<String, Product>(size * 2);
+        while(products.size() < size) {
+            final var id = productId(random);
+            products.put(id, new Product(id, "Product " + products.size(), 100 + random.nextInt(10_000)));
+        }
+        return ProductCatalog.of(products);
+    }
+
+    public static CurrencyRates rates() {
+        return CurrencyRates.of(new CurrencyApiResponse("USD", "2025-12-18", Map.of(
+                "AUD", 1.5133,
+                "BGN", 1.6689,
+                "GBP", 0.74631,
+                "JPY", 155.77
+        )));
+    }
+
+    /**
+     * @return count product IDs from the catalog, starting from the given offset (wrapping around).
+     */
+    public static List<String> productIds(final ProductCatalog catalog, final int offset, final int count) {
+        final var allIds = catalog.products().keySet().stream().sorted().toList();
+        final var ids = new ArrayList<String>(count);
+        for(int i = 0; i < count; i++) {
+            ids.add(allIds.get((offset + i) % allIds.size()));
+        }
+        return ids;
+    }
+
+    public static ProductsCache stubProductsCache(final ProductCatalog catalog) {
+        return new ProductsCache(null, new GatewayConfig(), event -> {}, new SimpleMeterRegistry()) {
+            @Override
+            public ProductCatalog getSnapshot() {
+                return catalog;
+            }
+        };
+    }
+
+    public static CurrencyRatesCache stubCurrencyRatesCache(final CurrencyRates rates) {
+        return new CurrencyRatesCache(null, new GatewayConfig(), new SimpleMeterRegistry()) {
+            @Override
+            public CurrencyRates getRates() {
+                return rates;
+            }
+        };
+    }
+
+    /**
+     * Starts the application, without a web server or background refreshes, against a new in-memory H2 database.
+     * The product and currency caches are replaced by stubs serving the given catalog and rates.
+     *
+     * @param properties any further properties to start the application with, i.e. {@code name=value}
+     */
+    public static ConfigurableApplicationContext startApplication(
+            final ProductCatalog catalog,
+            final CurrencyRates rates,
+            final String... properties) {
+        return new SpringApplicationBuilder(BazaarBundlesApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "scheduling.enabled=false",
+                        "warm-up.enabled=false",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"
+                )
+                .properties(properties)
+                .initializers(context -> {
+                    final var genericContext = (GenericApplicationContext) context;
+                    genericContext.registerBean(
+                            "stubProductsCache",
+                            ProductsCache.class,
+                            () -> stubProductsCache(catalog),
+                            definition -> definition.setPrimary(true));
+                    genericContext.registerBean(
+                            "stubCurrencyRatesCache",
+                            CurrencyRatesCache.class,
+                            () -> stubCurrencyRatesCache(rates),
+                            definition -> definition.setPrimary(true));
+                })
+                .run();
+    }
+
+    private static String productId(final Random random) {
+        final var id = new char[12];
+        for(int i = 0; i < id.length; i++) {
+            id[i] = ID_ALPHABET.charAt(random.nextInt(ID_ALPHABET.length()));
+        }
+        return new String(id);
+    }
+}
@@ -0,0 +1,142 @@
+package dev.punchcafe.bazaar.benchmarks;
+
+import dev.punchcafe.bazaar.packages.Package;
+import dev.punchcafe.bazaar.packages.PackageService;
+import dev.punchcafe.bazaar.products.ProductCatalog;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the PackageService read and write paths against an in-memory H2 database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PackageServiceBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+    private static final int SEEDED_PACKAGES = 1_000;
+
+    @State(Scope.Benchmark)
+    public static class Application {
+
+        @Param({"1", "10", "50"})
+        public int productsPerPackage;
+
+        ConfigurableApplicationContext context;
+        PackageService packageService;
+        ProductCatalog catalog;
+        List<Long> packageIds;
+        List<String> productIds;
+        List<String> alternativeProductIds;
+        int nextPackage;
+        boolean useAlternativeProducts;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            this.catalog = BenchmarkFixtures.catalog(CATALOG_SIZE);
+            this.context = BenchmarkFixtures.startApplication(this.catalog, BenchmarkFixtures.rates(), properties());
+            this.packageService = this.context.getBean(PackageService.class);
+            this.productIds = BenchmarkFixtures.productIds(this.catalog, 0, this.productsPerPackage);
+            // Half overlapping with productIds, so updates both add and remove members.
+            this.alternativeProductIds = BenchmarkFixtures.productIds(
+                    this.catalog, this.productsPerPackage / 2, this.productsPerPackage);
+
+            this.packageIds = new ArrayList<>(SEEDED_PACKAGES);
+            for(int i = 0; i < SEEDED_PACKAGES; i++) {
+                final var productIds = BenchmarkFixtures.productIds(this.catalog, i * this.productsPerPackage, this.productsPerPackage);
+                this.packageIds.add(this.packageService.create("Package " + i, "Benchmark package", productIds).id());
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            this.context.close();
+        }
+
+        String[] properties() {
+            return new String[0];
+        }
+
+        long nextPackageId() {
+            final var id = this.packageIds.get(this.nextPackage);
+            this.nextPackage = (this.nextPackage + 1) % this.packageIds.size();
+            return id;
+        }
+
+        List<String> nextMembership() {
+            this.useAlternativeProducts = !this.useAlternativeProducts;
+            return this.useAlternativeProducts ? this.alternativeProductIds : this.productIds;
+        }
+    }
+
+    /**
+     * The application with a package cache which holds nothing, so every read of a package goes to the database.
+     */
+    @State(Scope.Benchmark)
+    public static class UncachedApplication extends Application {
+
+        @Override
+        String[] properties() {
+            // Caffeine evicts each package as soon as it's cached.
+            return new String[] {"packages.cache.maximum-weight=0"};
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Paging {
+
+        @Param({"10", "50"})
+        public int pageSize;
+
+        int nextPage;
+
+        int nextPageNumber() {
+            final var pageNumber = this.nextPage;
+            this.nextPage = (this.nextPage + 1) % (SEEDED_PACKAGES / this.pageSize);
+            return pageNumber;
+        }
+    }
+
+    /**
+     * Reads packages which, after the first pass over them, are all in the package cache.
+     */
+    @Benchmark
+    public Optional<Package> get(final Application application) {
+        return application.packageService.get(application.nextPackageId());
+    }
+
+    /**
+     * Reads packages which are never in the package cache, so each is hydrated from the database.
+     */
+    @Benchmark
+    public Optional<Package> getUncached(final UncachedApplication application) {
+        return application.packageService.get(application.nextPackageId());
+    }
+
+    @Benchmark
+    public List<Package> pagenatedPackages(final Application application, final Paging paging) {
+        return application.packageService.pagenatedPackages(paging.nextPageNumber(), paging.pageSize);
+    }
+
+    @Benchmark
+    public Package create(final Application application) {
+        return application.packageService.create("Created", "Benchmark package", application.productIds);
+    }
+
+    @Benchmark
+    public Package update(final Application application) {
+        return application.packageService.update(
+                application.nextPackageId(),
+                "Updated",
+                "Benchmark package",
+                application.nextMembership());
+    }
+}
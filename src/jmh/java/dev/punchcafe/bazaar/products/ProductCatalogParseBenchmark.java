@@ -0,0 +1,84 @@
+package dev.punchcafe.bazaar.products;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.punchcafe.bazaar.benchmarks.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks loading a products API response into a catalog snapshot: streaming it straight into the
+ * snapshot, against binding it to a Product[] first, in each catalog layout. Run with {@code -prof gc} to see
+ * allocation per load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductCatalogParseBenchmark {
+
+    @Param({"100000"})
+    public int catalogSize;
+
+    @Param({"HASH_MAP", "COMPACT"})
+    public ProductCatalogLayout layout;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ProductCatalogReader reader;
+    private ProductCatalog current;
+    private ProductCatalog repriced;
+    private byte[] unchangedBody;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.reader = new ProductCatalogReader(this.objectMapper.getFactory(), this.layout);
+        final var fixture = BenchmarkFixtures.catalog(this.catalogSize);
+        this.unchangedBody = this.objectMapper.writeValueAsBytes(fixture.products().values());
+        this.current = this.reader.read(new ByteArrayInputStream(this.unchangedBody), null, Instant.now());
+
+        // The same catalog, with every product's price changed.
+        final var builder = ProductCatalog.builder(null, this.layout);
+        this.current.products().values().forEach(product ->
+                builder.product(product.id(), product.name(), product.usdPrice() + 1));
+        this.repriced = builder.build(Instant.now());
+    }
+
+    /**
+     * The first load, with no previous snapshot to reuse products from.
+     */
+    @Benchmark
+    public ProductCatalog streamInitialLoad() throws IOException {
+        return this.reader.read(new ByteArrayInputStream(this.unchangedBody), null, Instant.now());
+    }
+
+    /**
+     * A refresh where nothing has changed, so every product instance is reused (in the HASH_MAP layout).
+     */
+    @Benchmark
+    public ProductCatalog streamUnchangedRefresh() throws IOException {
+        return this.reader.read(new ByteArrayInputStream(this.unchangedBody), this.current, Instant.now());
+    }
+
+    /**
+     * A refresh where every product has changed, so none can be reused.
+     */
+    @Benchmark
+    public ProductCatalog streamRepricedRefresh() throws IOException {
+        return this.reader.read(new ByteArrayInputStream(this.unchangedBody), this.repriced, Instant.now());
+    }
+
+    /**
+     * The previous approach: bind the whole response to a Product[] before building the snapshot from it.
+     */
+    @Benchmark
+    public ProductCatalog bindThenCopy() throws IOException {
+        final var products = this.objectMapper.readValue(new ByteArrayInputStream(this.unchangedBody), Product[].class);
+        return ProductCatalog.of(Arrays.asList(products), 1, Instant.now());
+    }
+}
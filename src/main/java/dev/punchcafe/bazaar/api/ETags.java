@@ -0,0 +1,53 @@
+package dev.punchcafe.bazaar.api;
+
+import dev.punchcafe.bazaar.packages.Package;
+import org.springframework.http.MediaType;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Builds the strong ETags of package resources.
+ * A package resource is determined entirely by the package's version and its pricing version (the
+ * content hash of the catalog it was priced with, and the currency and its rate), so its ETag can be
+ * computed without pricing or serializing it. None of these depend on the instance, so ETags stay valid
+ * across restarts and behind a load balancer. Each encoding of a resource is a different representation,
+ * so the ETag also names the encoding.
+ */
+final class ETags {
+
+    private ETags() {}
+
+    static String forPackage(final Package pkg, final String pricingVersion, final MediaType encoding) {
+        return String.format("\"%d-%d-%s-%s\"", pkg.id(), pkg.version(), pricingVersion, encoding.getSubtype());
+    }
+
+    /**
+     * @return an ETag which changes whenever a package joins, leaves, or changes on the page.
+     */
+    static String forPage(final List<Package> page, final String pricingVersion, final MediaType encoding) {
+        final var buffer = ByteBuffer.allocate(page.size() * 2 * Long.BYTES);
+        for(final var pkg : page) {
+            buffer.putLong(pkg.id()).putLong(pkg.version());
+        }
+        final var digest = Arrays.copyOf(sha256().digest(buffer.array()), 16);
+        return String.format(
+                "\"%s-%s-%s\"",
+                Base64.getUrlEncoder().withoutPadding().encodeToString(digest),
+                pricingVersion,
+                encoding.getSubtype());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+}
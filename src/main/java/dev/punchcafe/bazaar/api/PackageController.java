@@ -1,27 +1,52 @@
 package dev.punchcafe.bazaar.api;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import dev.punchcafe.bazaar.api.errors.BulkRequestTooLarge;
+import dev.punchcafe.bazaar.api.errors.MultiGetRequestTooLarge;
 import dev.punchcafe.bazaar.api.errors.UnknownProductId;
+import dev.punchcafe.bazaar.currency.CurrencyRate;
 import dev.punchcafe.bazaar.currency.CurrencyService;
+import dev.punchcafe.bazaar.packages.exceptions.DuplicatePackageIdException;
 import dev.punchcafe.bazaar.packages.exceptions.DuplicateProductIdException;
 import dev.punchcafe.bazaar.packages.exceptions.EntityNotFoundException;
 import dev.punchcafe.bazaar.api.errors.InvalidPaginationParameters;
+import dev.punchcafe.bazaar.api.schema.BulkPackageRequest;
+import dev.punchcafe.bazaar.api.schema.BulkPackageResponse;
+import dev.punchcafe.bazaar.api.schema.BulkPackageResult;
 import dev.punchcafe.bazaar.api.schema.ChangePackageRequest;
 import dev.punchcafe.bazaar.api.schema.ErrorResponse;
 import dev.punchcafe.bazaar.api.schema.ListPackageResponse;
+import dev.punchcafe.bazaar.api.schema.MultiGetPackageResponse;
 import dev.punchcafe.bazaar.api.schema.PackageResource;
 import dev.punchcafe.bazaar.config.ApiConfiguration;
+import dev.punchcafe.bazaar.metrics.RequestStages;
 import dev.punchcafe.bazaar.packages.Package;
+import dev.punchcafe.bazaar.packages.PackageChange;
+import dev.punchcafe.bazaar.packages.PackageChangeResult;
+import dev.punchcafe.bazaar.packages.PackagePriceIndex;
 import dev.punchcafe.bazaar.packages.PackageService;
-import dev.punchcafe.bazaar.products.Product;
 import dev.punchcafe.bazaar.products.ProductService;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Objects;
-import java.util.Optional;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Function;
 
 import static dev.punchcafe.bazaar.currency.CurrencyService.USD_CURRENCY_LABEL;
 
@@ -30,46 +55,73 @@ import static dev.punchcafe.bazaar.currency.CurrencyService.USD_CURRENCY_LABEL;
 @RestController
 public class PackageController {
 
+    private static final String PACKAGE_NOT_FOUND = "package not found";
+    private static final String UNKNOWN_PRODUCT_ID = "unknown product ID";
+    private static final String DUPLICATE_PRODUCT_IDS = "productIds may not contain duplicates";
+
     private final ApiConfiguration apiConfiguration;
     private final PackageService packageService;
     private final ProductService productService;
     private final CurrencyService currencyService;
+    private final PackagePriceIndex packagePriceIndex;
+    private final ObjectMapper objectMapper;
+    private final RequestStages requestStages;
+    private final ResponseEncodings responseEncodings;
 
     public PackageController(
             final ApiConfiguration apiConfiguration,
             final PackageService packageService,
             final ProductService productService,
-            final CurrencyService currencyService
+            final CurrencyService currencyService,
+            final PackagePriceIndex packagePriceIndex,
+            final ObjectMapper objectMapper,
+            final RequestStages requestStages,
+            final ResponseEncodings responseEncodings
             ) {
         this.apiConfiguration = apiConfiguration;
         this.packageService = packageService;
         this.productService = productService;
         this.currencyService = currencyService;
+        this.packagePriceIndex = packagePriceIndex;
+        this.objectMapper = objectMapper;
+        this.requestStages = requestStages;
+        this.responseEncodings = responseEncodings;
     }
 
     @ResponseStatus(code=HttpStatus.CREATED)
     @PostMapping(value = "/packages")
     public PackageResource create(@RequestBody ChangePackageRequest request) {
+        this.requestStages.begin("create_package", 1, USD_CURRENCY_LABEL);
         validateProductIds(request);
         final var createdPackage = packageService.create(request.name(), request.description(), request.productIds());
         return convertModelToApiResource(createdPackage, USD_CURRENCY_LABEL);
     }
 
+    /**
+     * Supports conditional requests: if the client's If-None-Match still matches the package's ETag,
+     * responds 304 without pricing or serializing the package.
+     */
     @GetMapping(value = "/packages/{id}")
     public PackageResource get(
             @PathVariable String id,
-            @RequestParam(value = "currency", defaultValue = USD_CURRENCY_LABEL) final String currency
+            @RequestParam(value = "currency", defaultValue = USD_CURRENCY_LABEL) final String currency,
+            final NativeWebRequest webRequest
     ) {
-         return Optional.of(id)
-                .map(Long::parseLong)
-                .flatMap(packageService::get)
-                 .map(existingPackage -> this.convertModelToApiResource(existingPackage, currency) )
+        this.requestStages.begin("get_package", 1, currencyTag(currency));
+        final var parsedId = Long.parseLong(id);
+        final var existingPackage = this.requestStages.time(RequestStages.HYDRATE, () -> packageService.get(parsedId))
                 .orElseThrow(EntityNotFoundException::new);
+        if(checkNotModified(webRequest, PackageResource.class,
+                encoding -> ETags.forPackage(existingPackage, pricingVersion(currency), encoding))) {
+            return null;
+        }
+        return this.convertModelToApiResource(existingPackage, currency);
     }
 
     @PutMapping(value = "/packages/{id}")
     public PackageResource update(@PathVariable String id, @RequestBody ChangePackageRequest request) {
         final var parsedId = Long.parseLong(id);
+        this.requestStages.begin("update_package", 1, USD_CURRENCY_LABEL);
         validateProductIds(request);
         final var updatedPackage = packageService.update(
                 parsedId,
@@ -88,23 +140,67 @@ public class PackageController {
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping(value = "/packages/bulk")
+    public BulkPackageResponse bulkChange(@RequestBody BulkPackageRequest request) {
+        if(request.packages().size() > this.apiConfiguration.getMaxBulkSize()) {
+            throw new BulkRequestTooLarge();
+        }
+        this.requestStages.begin("bulk_change_packages", request.packages().size(), USD_CURRENCY_LABEL);
+
+        // Validate every entry against the same catalog snapshot.
+        final var catalog = this.productService.catalog();
+        final var results = new BulkPackageResult[request.packages().size()];
+        final var changes = new ArrayList<PackageChange>();
+        final var changeIndexes = new ArrayList<Integer>();
+        this.requestStages.time(RequestStages.VALIDATE, () -> {
+            for(int i = 0; i < request.packages().size(); i++) {
+                final var entry = request.packages().get(i);
+                if(entry == null || entry.name() == null || entry.description() == null || entry.productIds() == null) {
+                    results[i] = BulkPackageResult.failed(i, "name, description and productIds are required");
+                } else if(!catalog.containsAll(entry.productIds())) {
+                    results[i] = BulkPackageResult.failed(i, UNKNOWN_PRODUCT_ID);
+                } else {
+                    changes.add(new PackageChange(entry.id(), entry.name(), entry.description(), entry.productIds()));
+                    changeIndexes.add(i);
+                }
+            }
+        });
+
+        final var changeResults = this.packageService.bulkChange(changes);
+        for(int i = 0; i < changeResults.size(); i++) {
+            final int index = changeIndexes.get(i);
+            results[index] = toBulkResult(index, changeResults.get(i));
+        }
+        return new BulkPackageResponse(Arrays.asList(results));
+    }
+
     @GetMapping(value = "/packages")
     public ListPackageResponse list(
             @RequestParam(value = "page_size", defaultValue = "10") String pageSizeString,
             @RequestParam(value = "page_number", defaultValue = "0") String pageNumberString,
-            @RequestParam(value = "currency", defaultValue = USD_CURRENCY_LABEL) String currency
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "currency", defaultValue = USD_CURRENCY_LABEL) String currency,
+            final NativeWebRequest webRequest
     ) {
-        final var pageSize = Integer.min(
-                validatePaginationParamString(pageSizeString),
-                this.apiConfiguration.getMaxPageSize()
-        );
+        final var pageSize = validatePageSize(pageSizeString);
         final var pageNumber = validatePaginationParamString(pageNumberString);
 
-        if((pageSize <= 0) || pageNumber < 0) {
+        if(pageNumber < 0) {
             throw new InvalidPaginationParameters();
         }
+        this.requestStages.begin("list_packages", pageSize, currencyTag(currency));
 
-        final var resultEntries = packageService.pagenatedPackages(pageNumber, pageSize).stream()
+        if(cursor != null) {
+            return listAfterCursor(cursor, pageSize, currency, webRequest);
+        }
+
+        final var page = this.requestStages.time(
+                RequestStages.HYDRATE, () -> packageService.pagenatedPackages(pageNumber, pageSize));
+        if(checkNotModified(webRequest, ListPackageResponse.class,
+                encoding -> ETags.forPage(page, pricingVersion(currency), encoding))) {
+            return null;
+        }
+        final var resultEntries = page.stream()
                 .map(pkg -> this.convertModelToApiResource(pkg, currency))
                 .toList();
 
@@ -115,6 +211,203 @@ public class PackageController {
                 .build();
     }
 
+    /**
+     * Gets many packages by id in one call, e.g. {@code /packages?ids=1,2,3}.
+     * The packages are loaded with one query for the packages and one for their products, and are all
+     * priced against the same catalog snapshot and conversion rate. Ids with no package are reported in
+     * missingIds, rather than failing the request.
+     */
+    @GetMapping(value = "/packages", params = "ids")
+    public MultiGetPackageResponse getAll(
+            @RequestParam(value = "ids") List<String> idStrings,
+            @RequestParam(value = "currency", defaultValue = USD_CURRENCY_LABEL) String currency,
+            final NativeWebRequest webRequest
+    ) {
+        varyByAccept(webRequest);
+        final var ids = new LinkedHashSet<Long>();
+        idStrings.forEach(id -> ids.add(Long.parseLong(id.trim())));
+        if(ids.size() > this.apiConfiguration.getMaxMultiGetSize()) {
+            throw new MultiGetRequestTooLarge();
+        }
+        this.requestStages.begin("multi_get_packages", ids.size(), currencyTag(currency));
+
+        final var packages = this.requestStages.time(RequestStages.HYDRATE, () -> this.packageService.getAll(ids));
+        final var catalog = this.productService.catalog();
+        final var rate = this.requestStages.time(RequestStages.CURRENCY_CONVERSION, () -> this.currencyService.rate(currency));
+        final var foundIds = new HashSet<Long>();
+        final var resources = packages.stream()
+                .map(pkg -> {
+                    foundIds.add(pkg.id());
+                    final int usdTotal = this.requestStages.time(
+                            RequestStages.CATALOG_LOOKUP, () -> this.packagePriceIndex.usdTotal(pkg, catalog));
+                    return toApiResource(pkg, usdTotal, rate);
+                })
+                .toList();
+
+        return MultiGetPackageResponse.builder()
+                .packages(resources)
+                .missingIds(ids.stream().filter(id -> !foundIds.contains(id)).toList())
+                .build();
+    }
+
+    /**
+     * Lists the packages containing the given product, in id order, using the same cursors as {@link #list}.
+     * Packages are found even once the product has been removed from the catalog.
+     */
+    @GetMapping(value = "/products/{productId}/packages")
+    public ListPackageResponse listContainingProduct(
+            @PathVariable String productId,
+            @RequestParam(value = "page_size", defaultValue = "10") String pageSizeString,
+            @RequestParam(value = "cursor", defaultValue = "") String cursor,
+            @RequestParam(value = "currency", defaultValue = USD_CURRENCY_LABEL) String currency,
+            final NativeWebRequest webRequest
+    ) {
+        final var pageSize = validatePageSize(pageSizeString);
+        this.requestStages.begin("list_packages_containing_product", pageSize, currencyTag(currency));
+        final var lastSeenId = PageCursor.decode(cursor);
+        final var page = this.requestStages.time(
+                RequestStages.HYDRATE, () -> packageService.packagesContaining(productId, lastSeenId, pageSize));
+        return toCursorPage(page, pageSize, currency, webRequest);
+    }
+
+    /**
+     * Streams every package, one JSON object per line, in id order.
+     * All packages are priced against the same catalog snapshot and conversion rate, and are written
+     * as they're read from the database, so the export runs in constant memory.
+     */
+    @GetMapping(value = "/packages/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "currency", defaultValue = USD_CURRENCY_LABEL) String currency
+    ) {
+        final var catalog = this.productService.catalog();
+        final var rate = this.currencyService.rate(currency);
+        // Leave flushing to the response buffer, rather than flushing every line.
+        final var writer = this.objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        final StreamingResponseBody body = outputStream -> {
+            try(final var generator = this.objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                this.packageService.forEachPackage(pkg -> {
+                    final var resource = toApiResource(pkg, this.packagePriceIndex.usdTotal(pkg, catalog), rate);
+                    try {
+                        writer.writeValue(generator, resource);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private ListPackageResponse listAfterCursor(
+            final String cursor,
+            final int pageSize,
+            final String currency,
+            final NativeWebRequest webRequest) {
+        final var lastSeenId = PageCursor.decode(cursor);
+        final var page = this.requestStages.time(
+                RequestStages.HYDRATE, () -> packageService.packagesAfter(lastSeenId, pageSize));
+        return toCursorPage(page, pageSize, currency, webRequest);
+    }
+
+    private ListPackageResponse toCursorPage(
+            final List<Package> page,
+            final int pageSize,
+            final String currency,
+            final NativeWebRequest webRequest) {
+        if(checkNotModified(webRequest, ListPackageResponse.class,
+                encoding -> ETags.forPage(page, pricingVersion(currency), encoding))) {
+            return null;
+        }
+        final var resultEntries = page.stream()
+                .map(pkg -> this.convertModelToApiResource(pkg, currency))
+                .toList();
+
+        // A short page means we've reached the end.
+        final var nextCursor = page.size() < pageSize ? null : PageCursor.encode(page.get(page.size() - 1).id());
+
+        return ListPackageResponse.builder()
+                .packages(resultEntries)
+                .pageSize(pageSize)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private BulkPackageResult toBulkResult(final int index, final PackageChangeResult result) {
+        if(result.succeeded()) {
+            return new BulkPackageResult(
+                    index,
+                    result.created() ? BulkPackageResult.Status.CREATED : BulkPackageResult.Status.UPDATED,
+                    convertModelToApiResource(result.pkg(), USD_CURRENCY_LABEL),
+                    null);
+        }
+        if(result.failure() instanceof EntityNotFoundException) {
+            return BulkPackageResult.failed(index, PACKAGE_NOT_FOUND);
+        }
+        if(result.failure() instanceof DuplicateProductIdException) {
+            return BulkPackageResult.failed(index, DUPLICATE_PRODUCT_IDS);
+        }
+        if(result.failure() instanceof DuplicatePackageIdException) {
+            return BulkPackageResult.failed(index, "package may only appear once per bulk request");
+        }
+        throw result.failure();
+    }
+
+    /**
+     * Responds 304 if the client's If-None-Match still matches the ETag of the resource, as encoded for
+     * this request. Requests with no acceptable encoding are left to be answered 406 as the response is written.
+     */
+    private boolean checkNotModified(
+            final NativeWebRequest webRequest,
+            final Class<?> type,
+            final Function<MediaType, String> etag) {
+        varyByAccept(webRequest);
+        final var encoding = this.responseEncodings.negotiate(webRequest, type);
+        return encoding != null && webRequest.checkNotModified(etag.apply(encoding));
+    }
+
+    /**
+     * The same resource is encoded as JSON, CBOR or Smile depending on the Accept header, so caches must
+     * only reuse a response for requests with the same Accept.
+     */
+    private static void varyByAccept(final NativeWebRequest webRequest) {
+        final var response = webRequest.getNativeResponse(HttpServletResponse.class);
+        if(response != null) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+    }
+
+    /**
+     * Identifies the catalog content and rate a resource in the given currency would be priced with.
+     * Both come from the upstreams' content rather than this instance's snapshot versions, so a resource
+     * has the same pricing version across restarts and instances. Only the requested currency's rate is
+     * consulted, so a resource doesn't change when only other rates do.
+     */
+    private String pricingVersion(final String currency) {
+        final var catalogHash = Long.toUnsignedString(this.productService.catalog().contentHash(), 36);
+        final var rate = this.currencyService.rate(currency);
+        if(rate == null || USD_CURRENCY_LABEL.equals(rate.code())) {
+            return catalogHash + "-" + USD_CURRENCY_LABEL;
+        }
+        return catalogHash + "-" + rate.multiplier() + "-" + rate.code();
+    }
+
+    private int validatePageSize(final String pageSizeString) {
+        final var pageSize = Integer.min(
+                validatePaginationParamString(pageSizeString),
+                this.apiConfiguration.getMaxPageSize()
+        );
+        if(pageSize <= 0) {
+            throw new InvalidPaginationParameters();
+        }
+        return pageSize;
+    }
+
     private int validatePaginationParamString(final String input) {
         try {
             return Integer.parseInt(input);
@@ -124,17 +417,19 @@ public class PackageController {
     }
 
     private void validateProductIds(final ChangePackageRequest request) {
-        final var anyInvalid = request.productIds()
-                .stream()
-                .anyMatch(this::isInvalidProductId);
-        if(anyInvalid) throw new UnknownProductId();
+        final var allFound = this.requestStages.time(
+                RequestStages.VALIDATE,
+                () -> this.productService.containsAll(request.productIds()));
+        if(!allFound) throw new UnknownProductId();
     }
 
-    private boolean isInvalidProductId(final String productId) {
-        if(Objects.isNull(productId)) {
-            return true;
-        }
-        return this.productService.lookup(productId).isEmpty();
+    /**
+     * @return the code of the currency a resource would be priced in, for tagging metrics.
+     * Unknown currencies fall back to USD, so clients can't create arbitrarily many tags.
+     */
+    private String currencyTag(final String currency) {
+        final var rate = this.currencyService.rate(currency);
+        return rate == null ? USD_CURRENCY_LABEL : rate.code();
     }
 
     // TODO: Update OpenAPI spec to only include error codes specific to that controller method.
@@ -143,14 +438,14 @@ public class PackageController {
     @ExceptionHandler(EntityNotFoundException.class)
     @ResponseBody
     private ErrorResponse handleNotFound(final HttpServletRequest req, final Exception ex){
-        return new ErrorResponse("package not found");
+        return new ErrorResponse(PACKAGE_NOT_FOUND);
     }
 
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(UnknownProductId.class)
     @ResponseBody
     private ErrorResponse handleUnknownProductId(final HttpServletRequest req, final Exception ex){
-        return new ErrorResponse("unknown product ID");
+        return new ErrorResponse(UNKNOWN_PRODUCT_ID);
     }
 
     @ResponseStatus(HttpStatus.BAD_REQUEST)
@@ -166,7 +461,23 @@ public class PackageController {
     @ExceptionHandler(DuplicateProductIdException.class)
     @ResponseBody
     private ErrorResponse handleDuplicateProductIdParams(final HttpServletRequest req, final Exception ex){
-        return new ErrorResponse("productIds may not contain duplicates");
+        return new ErrorResponse(DUPLICATE_PRODUCT_IDS);
+    }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(BulkRequestTooLarge.class)
+    @ResponseBody
+    private ErrorResponse handleBulkRequestTooLarge(final HttpServletRequest req, final Exception ex){
+        return new ErrorResponse(String.format(
+                "bulk requests may contain at most %d packages", this.apiConfiguration.getMaxBulkSize()));
+    }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(MultiGetRequestTooLarge.class)
+    @ResponseBody
+    private ErrorResponse handleMultiGetRequestTooLarge(final HttpServletRequest req, final Exception ex){
+        return new ErrorResponse(String.format(
+                "multi-get requests may contain at most %d ids", this.apiConfiguration.getMaxMultiGetSize()));
     }
 
     @ResponseStatus(HttpStatus.BAD_REQUEST)
@@ -176,38 +487,28 @@ public class PackageController {
         return new ErrorResponse("invalid query pagination parameters");
     }
 
-    private PackageResource convertModelToApiResource(final Package model, final String currency) {
-        final var totalPriceUsd = model.productIds().stream()
-                .map(productId -> {
-                    // TODO: confirm business requirements for this case.
-                    final var productCost = this.productService.lookup(productId).map(Product::usdPrice);
-                    if(productCost.isEmpty()) {
-                        log.error(String.format("Unexpected error: package ID %d contains unknown product ID %s", model.id(), productId));
-                    }
-                    return productCost.orElse(0);
-                })
-                .reduce(Integer::sum)
-                .orElse(0);
-
+    PackageResource convertModelToApiResource(final Package model, final String currency) {
+        final int usdTotal = this.requestStages.time(RequestStages.CATALOG_LOOKUP, () -> this.packagePriceIndex.usdTotal(model));
+        final var rate = this.requestStages.time(RequestStages.CURRENCY_CONVERSION, () -> this.currencyService.rate(currency));
+        return toApiResource(model, usdTotal, rate);
+    }
 
+    private PackageResource toApiResource(final Package model, final int totalPriceUsd, final CurrencyRate rate) {
         final var builder = PackageResource.builder()
                 .id(model.id())
                 .name(model.name())
                 .productIds(model.productIds())
                 .description(model.description());
 
-        return addPrice(builder, currency, totalPriceUsd).build();
+        return addPrice(builder, rate, totalPriceUsd).build();
     }
 
     private PackageResource.PackageResourceBuilder addPrice(
             final PackageResource.PackageResourceBuilder builder,
-            final String currency,
+            final CurrencyRate rate,
             final double usd) {
-        final var convertedAmount = this.currencyService.convertUSDTo(usd, currency);
-        if(convertedAmount.isPresent()) {
-            // TODO: clean up repeats of upper case
-            builder.totalPrice((float) (double) convertedAmount.get()).currency(currency.toUpperCase());
-            return builder;
+        if(rate != null) {
+            return builder.totalPrice((float) rate.convertUSD(usd)).currency(rate.code());
         } else {
             return builder.totalPrice((float) usd).currency(USD_CURRENCY_LABEL);
         }
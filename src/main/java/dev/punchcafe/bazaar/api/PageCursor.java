@@ -0,0 +1,48 @@
+package dev.punchcafe.bazaar.api;
+
+import dev.punchcafe.bazaar.api.errors.InvalidPaginationParameters;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque cursors handed out by keyset-paginated endpoints.
+ * Clients should treat the tokens as opaque; internally they carry the id of the last entry
+ * on the previous page.
+ */
+final class PageCursor {
+
+    private static final String PREFIX = "after:";
+
+    private PageCursor() {}
+
+    static String encode(final long lastSeenId) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((PREFIX + lastSeenId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor the cursor passed by the client. An empty cursor means the first page.
+     * @return the id of the last entry seen by the client.
+     */
+    static long decode(final String cursor) {
+        if(cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            final var decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if(!decoded.startsWith(PREFIX)) {
+                throw new InvalidPaginationParameters();
+            }
+            final var lastSeenId = Long.parseLong(decoded.substring(PREFIX.length()));
+            if(lastSeenId < 0) {
+                throw new InvalidPaginationParameters();
+            }
+            return lastSeenId;
+        } catch (IllegalArgumentException e) {
+            // Also covers NumberFormatException.
+            throw new InvalidPaginationParameters();
+        }
+    }
+}
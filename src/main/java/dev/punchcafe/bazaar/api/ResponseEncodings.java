@@ -0,0 +1,73 @@
+package dev.punchcafe.bazaar.api;
+
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.NativeWebRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Works out which encoding (JSON, CBOR or Smile) a response will be written in, before it's written, so
+ * conditional requests can be answered without pricing or serializing the resource.
+ * Negotiates the same way Spring MVC does when writing the response: the most specific acceptable type,
+ * among those the message converters can write, with ties going to the first registered converter.
+ */
+@Component
+class ResponseEncodings {
+
+    private final ContentNegotiationManager contentNegotiationManager;
+    private final List<HttpMessageConverter<?>> converters;
+
+    /**
+     * @param contentNegotiationManager Spring MVC's, resolved on first use as it only exists when running
+     *                                  with a web server.
+     */
+    ResponseEncodings(
+            @Lazy final ContentNegotiationManager contentNegotiationManager,
+            final HttpMessageConverters httpMessageConverters) {
+        this.contentNegotiationManager = contentNegotiationManager;
+        this.converters = httpMessageConverters.getConverters();
+    }
+
+    /**
+     * @param request the request being answered
+     * @param type the type of the response body
+     * @return the media type the response will be written as, without parameters, or null if the request
+     * doesn't accept any type the body can be written as.
+     */
+    MediaType negotiate(final NativeWebRequest request, final Class<?> type) {
+        final List<MediaType> acceptable;
+        try {
+            acceptable = this.contentNegotiationManager.resolveMediaTypes(request);
+        } catch (HttpMediaTypeNotAcceptableException e) {
+            return null;
+        }
+        final var compatible = new ArrayList<MediaType>();
+        for(final var requested : acceptable) {
+            for(final var converter : this.converters) {
+                if(!converter.canWrite(type, null)) {
+                    continue;
+                }
+                for(final var producible : converter.getSupportedMediaTypes(type)) {
+                    if(requested.isCompatibleWith(producible)) {
+                        compatible.add(requested.isLessSpecific(producible) ? producible : requested);
+                    }
+                }
+            }
+        }
+        MimeTypeUtils.sortBySpecificity(compatible);
+        for(final var mediaType : compatible) {
+            if(mediaType.isConcrete()) {
+                return new MediaType(mediaType.getType(), mediaType.getSubtype());
+            }
+        }
+        return null;
+    }
+}
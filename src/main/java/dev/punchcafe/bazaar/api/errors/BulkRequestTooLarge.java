@@ -0,0 +1,4 @@
+package dev.punchcafe.bazaar.api.errors;
+
+public class BulkRequestTooLarge extends RuntimeException {
+}
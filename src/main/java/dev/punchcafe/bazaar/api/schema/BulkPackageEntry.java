@@ -0,0 +1,13 @@
+package dev.punchcafe.bazaar.api.schema;
+
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * A package to create (when id is absent) or update within a bulk request.
+ * Fields are validated per entry, so one invalid entry doesn't fail the whole request.
+ */
+@Builder
+public record BulkPackageEntry(Long id, String name, String description, List<String> productIds) {
+}
@@ -0,0 +1,10 @@
+package dev.punchcafe.bazaar.api.schema;
+
+import lombok.Builder;
+import lombok.NonNull;
+
+import java.util.List;
+
+@Builder
+public record BulkPackageRequest(@NonNull List<BulkPackageEntry> packages) {
+}
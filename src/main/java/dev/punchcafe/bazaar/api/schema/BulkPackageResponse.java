@@ -0,0 +1,9 @@
+package dev.punchcafe.bazaar.api.schema;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record BulkPackageResponse(List<BulkPackageResult> results) {
+}
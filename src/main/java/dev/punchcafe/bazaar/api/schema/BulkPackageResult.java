@@ -0,0 +1,24 @@
+package dev.punchcafe.bazaar.api.schema;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * The outcome of one entry of a bulk request.
+ *
+ * @param index the position of the entry in the request
+ * @param resource the written package, if successful
+ * @param reason why the entry failed, if unsuccessful
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkPackageResult(int index, Status status, PackageResource resource, String reason) {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        FAILED
+    }
+
+    public static BulkPackageResult failed(final int index, final String reason) {
+        return new BulkPackageResult(index, Status.FAILED, null, reason);
+    }
+}
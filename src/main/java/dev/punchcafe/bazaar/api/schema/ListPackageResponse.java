@@ -1,9 +1,16 @@
 package dev.punchcafe.bazaar.api.schema;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 
 import java.util.List;
 
+/**
+ * A page of packages.
+ * Offset pages carry a pageNumber; cursor pages instead carry the nextCursor to pass to fetch the
+ * following page (absent on the last page).
+ */
 @Builder
-public record ListPackageResponse(int pageNumber, int pageSize, List<PackageResource> packages) {
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ListPackageResponse(Integer pageNumber, int pageSize, String nextCursor, List<PackageResource> packages) {
 }
@@ -0,0 +1,13 @@
+package dev.punchcafe.bazaar.api.schema;
+
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * The packages found for a multi-get, in the order their IDs were requested, along with the requested
+ * IDs which don't belong to any package.
+ */
+@Builder
+public record MultiGetPackageResponse(List<PackageResource> packages, List<Long> missingIds) {
+}
@@ -16,6 +16,8 @@ import org.springframework.context.annotation.Configuration;
 @Data
 public class ApiConfiguration {
     private int maxPageSize;
+    private int maxBulkSize = 1000;
+    private int maxMultiGetSize = 100;
 
     @Bean
     public TimedAspect timedAspect(MeterRegistry meterRegistry) {
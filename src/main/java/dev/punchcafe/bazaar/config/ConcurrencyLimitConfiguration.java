@@ -0,0 +1,68 @@
+package dev.punchcafe.bazaar.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "concurrency-limit")
+@Data
+public class ConcurrencyLimitConfiguration {
+    /**
+     * Whether to shed package API requests beyond the concurrency limits.
+     */
+    private boolean enabled = true;
+    /**
+     * How long shed requests are told to wait before retrying.
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+    /**
+     * The limit for reads (GET requests).
+     */
+    private Limit read = new Limit(100, 10, 200, Duration.ofMillis(250));
+    /**
+     * The limit for writes (every other request).
+     */
+    private Limit write = new Limit(20, 5, 50, Duration.ofSeconds(1));
+    /**
+     * The limit for streaming exports. Exports hold their slot for as long as they take to stream, which says
+     * nothing about load, so by default this limit is fixed rather than adapting.
+     */
+    private Limit export = new Limit(4, 4, 4, Duration.ofMinutes(30));
+
+    @Data
+    public static class Limit {
+        /**
+         * The number of requests allowed in flight at once, on start up.
+         */
+        private int initialLimit;
+        /**
+         * The limit never backs off below this.
+         */
+        private int minLimit;
+        /**
+         * The limit never grows above this.
+         */
+        private int maxLimit;
+        /**
+         * Requests slower than this are taken as a sign of overload, backing off the limit.
+         */
+        private Duration latencyThreshold;
+        /**
+         * The factor the limit is multiplied by on backing off.
+         */
+        private double backoffRatio = 0.9;
+
+        public Limit() {
+        }
+
+        Limit(final int initialLimit, final int minLimit, final int maxLimit, final Duration latencyThreshold) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.latencyThreshold = latencyThreshold;
+        }
+    }
+}
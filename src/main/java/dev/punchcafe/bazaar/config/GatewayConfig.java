@@ -1,14 +1,71 @@
 package dev.punchcafe.bazaar.config;
 
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Configuration of the HTTP client shared by all outbound calls to upstream services.
+ */
 @Configuration
+@ConfigurationProperties(prefix = "gateway")
+@Data
 public class GatewayConfig {
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    /**
+     * Deadline for a whole request to an upstream, from sending it to having read the last of its body.
+     */
+    private Duration readTimeout = Duration.ofSeconds(10);
+    /**
+     * Deadline for a refresh of upstream data shared by concurrent callers, after which they stop waiting
+     * on it and the next caller starts a fresh one. A stalled request normally fails at the read timeout first.
+     */
+    private Duration refreshTimeout = Duration.ofSeconds(30);
+    /**
+     * Whether outbound calls run on virtual threads, along with the rest of the blocking work.
+     * See {@link VirtualThreadConfiguration}.
+     */
+    @Value("${threads.virtual.enabled:false}")
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean virtualThreads;
 
+    /**
+     * The JDK client is non-blocking, and keeps connections alive in a pool shared between requests
+     * to the same upstream.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public HttpClient upstreamHttpClient() {
+        final var builder = HttpClient.newBuilder()
+                .connectTimeout(this.connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL);
+        if(this.virtualThreads) {
+            builder.executor(VirtualThreads.newThreadPerTaskExecutor("upstream-http-virtual-"));
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return a new executor for reading upstream response bodies, which blocks until each body arrives.
+     * Runs each read on a virtual thread when they're enabled, otherwise on a cached pool of daemon threads.
+     */
+    public ExecutorService newUpstreamBodyExecutor() {
+        if(this.virtualThreads) {
+            return VirtualThreads.newThreadPerTaskExecutor("upstream-body-virtual-");
+        }
+        final var bodyThreads = new CustomizableThreadFactory("upstream-body-");
+        bodyThreads.setDaemon(true);
+        return Executors.newCachedThreadPool(bodyThreads);
     }
 }
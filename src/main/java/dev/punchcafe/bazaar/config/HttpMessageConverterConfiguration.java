@@ -0,0 +1,90 @@
+package dev.punchcafe.bazaar.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import dev.punchcafe.bazaar.metrics.RequestStages;
+import dev.punchcafe.bazaar.metrics.TimedHttpMessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Message converters for JSON and, for callers which ask for them, the CBOR and Smile binary encodings.
+ * All three share the application's Jackson configuration, and time serialization when writing responses.
+ */
+@Configuration
+public class HttpMessageConverterConfiguration {
+
+    /**
+     * Replaces Spring Boot's default JSON converter.
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(final ObjectMapper objectMapper) {
+        return new MappingJackson2HttpMessageConverter(objectMapper);
+    }
+
+    /**
+     * Reads and writes {@code application/cbor}.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter mappingJackson2CborHttpMessageConverter(
+            final Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        return new MappingJackson2CborHttpMessageConverter(objectMapperBuilder.factory(cborFactory()).build());
+    }
+
+    /**
+     * Reads and writes {@code application/x-jackson-smile}.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter mappingJackson2SmileHttpMessageConverter(
+            final Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        return new MappingJackson2SmileHttpMessageConverter(objectMapperBuilder.factory(smileFactory()).build());
+    }
+
+    /**
+     * Wraps the converter of each encoding in Spring MVC's own list, so serialization is timed as responses
+     * are written. The beans themselves stay unwrapped, so they still replace Spring Boot's defaults by type,
+     * and are what {@code ResponseEncodings} negotiates against.
+     */
+    @Bean
+    public WebMvcConfigurer timedHttpMessageConverters(
+            final MappingJackson2HttpMessageConverter json,
+            final MappingJackson2CborHttpMessageConverter cbor,
+            final MappingJackson2SmileHttpMessageConverter smile,
+            final RequestStages requestStages) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void extendMessageConverters(final List<HttpMessageConverter<?>> converters) {
+                converters.replaceAll(converter -> converter == json || converter == cbor || converter == smile
+                        ? new TimedHttpMessageConverter<>((AbstractJackson2HttpMessageConverter) converter, requestStages)
+                        : converter);
+            }
+        };
+    }
+
+    /**
+     * Plain CBOR, which any decoder can read. Extensions such as stringref (tag 256) aren't part of
+     * {@code application/cbor}, so repeated strings are written out in full.
+     */
+    public static CBORFactory cborFactory() {
+        return CBORFactory.builder().build();
+    }
+
+    /**
+     * Smile, writing each repeated short string value (such as a product ID shared by many packages) as a
+     * back reference to its first occurrence.
+     */
+    public static SmileFactory smileFactory() {
+        return SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build();
+    }
+}
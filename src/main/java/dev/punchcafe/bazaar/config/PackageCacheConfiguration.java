@@ -0,0 +1,25 @@
+package dev.punchcafe.bazaar.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "packages.cache")
+@Data
+public class PackageCacheConfiguration {
+    /**
+     * The total weight of packages to hold in memory. Each package weighs one plus its number of
+     * products, so this bounds the cache roughly by the memory its entries take up. The package price
+     * index is bounded by the same weight and expiry.
+     */
+    private long maximumWeight = 100_000;
+    /**
+     * How long a package stays cached after it was loaded or written, which bounds how long changes made by
+     * other instances go unseen. Also how long a deleted package is remembered as deleted, so should outlast
+     * any read replica's lag.
+     */
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+}
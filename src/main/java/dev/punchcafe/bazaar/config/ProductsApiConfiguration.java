@@ -1,17 +1,26 @@
 package dev.punchcafe.bazaar.config;
 
+import dev.punchcafe.bazaar.products.ProductCatalogLayout;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.net.URI;
+
 @ConfigurationPropertiesScan
 @Configuration
 @EnableConfigurationProperties
 @ConfigurationProperties(prefix = "products-api")
 @Data
 public class ProductsApiConfiguration {
+    private URI productsUrl = URI.create("https://product-service.herokuapp.com/api/v1/products");
     private String username;
     private String password;
+    /**
+     * How the catalog snapshot is held in memory. COMPACT trades a little lookup time for a much
+     * smaller footprint on large catalogs.
+     */
+    private ProductCatalogLayout catalogLayout = ProductCatalogLayout.HASH_MAP;
 }
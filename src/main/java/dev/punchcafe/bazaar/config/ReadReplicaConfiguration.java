@@ -0,0 +1,48 @@
+package dev.punchcafe.bazaar.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Sends read-only transactions to a read replica, when {@code replica-datasource.jdbc-url} is set.
+ * The replica's pool is configured by the {@code replica-datasource.*} Hikari properties.
+ * Everything else, including read-write transactions and anything outside a transaction (like Liquibase),
+ * goes to the primary, configured by the usual {@code spring.datasource.*} properties.
+ * Only the primary is migrated, and the replica's schema isn't checked, so the replica must carry the schema
+ * the primary was migrated to.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "replica-datasource", name = "jdbc-url")
+public class ReadReplicaConfiguration {
+
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(final DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "replica-datasource")
+    public HikariDataSource replicaDataSource() {
+        final var dataSource = new HikariDataSource();
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") final DataSource primaryDataSource,
+            @Qualifier("replicaDataSource") final DataSource replicaDataSource) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource));
+    }
+}
@@ -0,0 +1,16 @@
+package dev.punchcafe.bazaar.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the background refresh jobs (product catalog, currency rates).
+ * Can be switched off with {@code scheduling.enabled=false}, e.g. for benchmarks or tooling
+ * that should never call out to the upstreams.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfiguration {
+}
@@ -0,0 +1,88 @@
+package dev.punchcafe.bazaar.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Opt-in mode ({@code threads.virtual.enabled=true}, Java 21+) which runs the blocking work on virtual threads:
+ * Tomcat request handling (so all of PackageController), async MVC work, the scheduled product catalog
+ * and currency rates refreshes, and the upstream HTTP client along with its response body reads (see
+ * {@link GatewayConfig}).
+ *
+ * Transactions are unaffected, as they're bound to the executing thread whatever its kind. The connection
+ * pool is what bounds database concurrency: excess requests queue on Hikari rather than on Tomcat's thread pool.
+ * MySQL Connector/J 8 pins a virtual thread to its carrier while blocked in a JDBC call, so the carrier pool must
+ * stay larger than the connection pool, otherwise pinned JDBC calls could starve every other request. The carrier
+ * pool can only be sized on the command line, with {@code -Djdk.virtualThreadScheduler.parallelism}, so a pool
+ * which isn't larger is only warned about.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+    private static final String CARRIER_PARALLELISM_PROPERTY = "jdk.virtualThreadScheduler.parallelism";
+    private static final int DEFAULT_HIKARI_POOL_SIZE = 10;
+
+    public VirtualThreadConfiguration(final Environment environment) {
+        if(!VirtualThreads.isSupported()) {
+            throw new IllegalStateException(
+                    "threads.virtual.enabled is set, but virtual threads require Java 21 or later, running " + Runtime.version());
+        }
+        checkCarrierPool(environment.getProperty(
+                "spring.datasource.hikari.maximum-pool-size", Integer.class, DEFAULT_HIKARI_POOL_SIZE));
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadRequestExecutor() {
+        final var requestThreads = VirtualThreads.factory("http-virtual-");
+        return protocolHandler -> protocolHandler.setExecutor(command -> requestThreads.newThread(command).start());
+    }
+
+    @Bean(name = {
+            TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME
+    })
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new SimpleAsyncTaskExecutor(VirtualThreads.factory("task-virtual-"));
+    }
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        final var scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadFactory(VirtualThreads.factory("scheduling-virtual-"));
+        // One each for the product catalog and currency rates refreshes.
+        scheduler.setPoolSize(2);
+        return scheduler;
+    }
+
+    private static void checkCarrierPool(final int connectionPoolSize) {
+        // The JVM defaults the carrier pool to one thread per processor.
+        final var configured = System.getProperty(CARRIER_PARALLELISM_PROPERTY);
+        final var parallelism = configured == null ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(configured);
+        if(parallelism > connectionPoolSize) {
+            log.info(String.format(
+                    "virtual threads enabled: %d carrier threads for a connection pool of %d",
+                    parallelism,
+                    connectionPoolSize));
+            return;
+        }
+        log.warn(String.format(
+                "virtual threads enabled with %d carrier threads for a connection pool of %d: JDBC calls pinning "
+                        + "every carrier could starve other requests, start the JVM with -D%s=%d",
+                parallelism,
+                connectionPoolSize,
+                CARRIER_PARALLELISM_PROPERTY,
+                connectionPoolSize + 1));
+    }
+}
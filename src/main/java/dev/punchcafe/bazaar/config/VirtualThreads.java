@@ -0,0 +1,62 @@
+package dev.punchcafe.bazaar.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads without requiring Java 21 to build.
+ * The project still targets Java 17, so the Java 21 {@code Thread.ofVirtual()} API is reached reflectively.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {}
+
+    static boolean isSupported() {
+        return ofVirtualMethod() != null;
+    }
+
+    /**
+     * @param prefix the name prefix for created threads, which are numbered from 0.
+     * @return a factory creating virtual threads.
+     * @throws IllegalStateException if the running JVM doesn't support virtual threads.
+     */
+    static ThreadFactory factory(final String prefix) {
+        final var ofVirtual = ofVirtualMethod();
+        if(ofVirtual == null) {
+            throw new IllegalStateException("virtual threads require Java 21 or later, running " + Runtime.version());
+        }
+        try {
+            final var builder = ofVirtual.invoke(null);
+            final var builderClass = Class.forName("java.lang.Thread$Builder");
+            final var namedBuilder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(namedBuilder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("unable to create virtual thread factory", e);
+        }
+    }
+
+    /**
+     * @param prefix the name prefix for created threads, which are numbered from 0.
+     * @return an executor starting a new virtual thread for each task.
+     * @throws IllegalStateException if the running JVM doesn't support virtual threads.
+     */
+    static ExecutorService newThreadPerTaskExecutor(final String prefix) {
+        final var threads = factory(prefix);
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threads);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("unable to create virtual thread executor", e);
+        }
+    }
+
+    private static Method ofVirtualMethod() {
+        try {
+            return Thread.class.getMethod("ofVirtual");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
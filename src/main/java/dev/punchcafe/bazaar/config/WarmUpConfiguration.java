@@ -0,0 +1,26 @@
+package dev.punchcafe.bazaar.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "warm-up")
+@Data
+public class WarmUpConfiguration {
+    /**
+     * Whether to load the caches on start up, reporting not ready until they're loaded.
+     */
+    private boolean enabled = true;
+    /**
+     * How many packages to load into the package cache, in id order (those served by the first pages
+     * of the package listing). 0 skips loading packages.
+     */
+    private int packages = 0;
+    /**
+     * How long to wait before retrying a failed step.
+     */
+    private Duration retryInterval = Duration.ofSeconds(10);
+}
@@ -0,0 +1,33 @@
+package dev.punchcafe.bazaar.currency;
+
+import dev.punchcafe.bazaar.gateway.UpstreamClient;
+import dev.punchcafe.bazaar.gateway.UpstreamClients;
+import dev.punchcafe.bazaar.gateway.UpstreamException;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@Component
+public class CurrencyApiClient {
+    // TODO: maybe extract url to env var?
+    private static final URI USD_RATES_URI = URI.create("https://api.frankfurter.dev/v1/latest?base=USD");
+
+    private final UpstreamClient upstream;
+
+    public CurrencyApiClient(final UpstreamClients upstreamClients) {
+        this.upstream = upstreamClients.forUpstream("currency_api");
+    }
+
+    // TODO: add unit testing
+    public CompletableFuture<CurrencyApiResponse> fetchUSDRates() {
+        return this.upstream.getJson(USD_RATES_URI, Map.of(), CurrencyApiResponse.class)
+                .thenApply(response -> {
+                    if(response == null || !"USD".equals(response.base())) {
+                        throw new UpstreamException("unable to get USD rates");
+                    }
+                    return response;
+                });
+    }
+}
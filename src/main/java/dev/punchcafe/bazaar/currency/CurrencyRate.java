@@ -0,0 +1,14 @@
+package dev.punchcafe.bazaar.currency;
+
+/**
+ * The multiplier to convert an amount in USD into the given currency.
+ *
+ * @param code the canonical, upper case currency code, i.e. GBP
+ * @param multiplier the amount of this currency equal to one USD
+ */
+public record CurrencyRate(String code, double multiplier) {
+
+    public double convertUSD(final double usd) {
+        return usd * this.multiplier;
+    }
+}
@@ -0,0 +1,84 @@
+package dev.punchcafe.bazaar.currency;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static dev.punchcafe.bazaar.currency.CurrencyService.USD_CURRENCY_LABEL;
+
+/**
+ * An immutable table of USD conversion rates, as published on a given date.
+ * Each currency's rate is built once when the table is loaded and then shared by every conversion,
+ * and is indexed under both its upper and lower case code so the common lookups don't need to
+ * normalise (and allocate) the requested currency string.
+ */
+public final class CurrencyRates {
+
+    static final CurrencyRate USD = new CurrencyRate(USD_CURRENCY_LABEL, 1.0);
+
+    private final Map<String, CurrencyRate> ratesByCode;
+    private final String date;
+    private final long version;
+    private final Instant loadedAt;
+
+    private CurrencyRates(final Map<String, CurrencyRate> ratesByCode, final String date, final long version, final Instant loadedAt) {
+        this.ratesByCode = ratesByCode;
+        this.date = date;
+        this.version = version;
+        this.loadedAt = loadedAt;
+    }
+
+    public static CurrencyRates of(final CurrencyApiResponse response) {
+        return of(response, 0, Instant.now());
+    }
+
+    public static CurrencyRates of(final CurrencyApiResponse response, final long version, final Instant loadedAt) {
+        final var ratesByCode = new HashMap<String, CurrencyRate>();
+        index(ratesByCode, USD);
+        response.rates().forEach((code, multiplier) -> {
+            if(code != null && multiplier != null) {
+                index(ratesByCode, new CurrencyRate(code.toUpperCase(Locale.ROOT).intern(), multiplier));
+            }
+        });
+        return new CurrencyRates(Map.copyOf(ratesByCode), response.date(), version, loadedAt);
+    }
+
+    private static void index(final Map<String, CurrencyRate> ratesByCode, final CurrencyRate rate) {
+        ratesByCode.put(rate.code(), rate);
+        ratesByCode.put(rate.code().toLowerCase(Locale.ROOT).intern(), rate);
+    }
+
+    /**
+     * Finds the rate for the given currency code, ignoring case.
+     *
+     * @param currency the currency code, i.e. GBP
+     * @return the rate, or null if the currency isn't known.
+     */
+    public CurrencyRate rate(final String currency) {
+        final var rate = this.ratesByCode.get(currency);
+        if(rate != null) {
+            return rate;
+        }
+        // Mixed case codes are rare enough to pay for normalising.
+        return this.ratesByCode.get(currency.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * @return the publication date of these rates, as reported by the rates API.
+     */
+    public String date() {
+        return this.date;
+    }
+
+    /**
+     * @return a version which increments with every newly published table.
+     */
+    public long version() {
+        return this.version;
+    }
+
+    public Instant loadedAt() {
+        return this.loadedAt;
+    }
+}
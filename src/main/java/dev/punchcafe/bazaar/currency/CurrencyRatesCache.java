@@ -1,42 +1,110 @@
 package dev.punchcafe.bazaar.currency;
 
+import dev.punchcafe.bazaar.config.GatewayConfig;
+import dev.punchcafe.bazaar.gateway.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.http.HttpStatus;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the latest published table of USD conversion rates.
+ * The table is only replaced when a newer publication is fetched; failed refreshes keep the
+ * last good rates in place, and concurrent refreshes share a single upstream request.
+ */
 @Slf4j
 @Component
 public class CurrencyRatesCache {
 
-    final RestTemplate restTemplate;
+    final CurrencyApiClient client;
+    private final AtomicReference<CurrencyRates> rates = new AtomicReference<>();
+    private final Counter refreshFailures;
+    private final SingleFlight<CurrencyRates> inFlightRefresh;
+    private final ReentrantLock publishLock = new ReentrantLock();
 
-    public CurrencyRatesCache(final RestTemplate restTemplate){
-        this.restTemplate = restTemplate;
+    public CurrencyRatesCache(
+            final CurrencyApiClient client,
+            final GatewayConfig gatewayConfig,
+            final MeterRegistry meterRegistry){
+        this.client = client;
+        this.inFlightRefresh = new SingleFlight<>(gatewayConfig.getRefreshTimeout());
+        this.refreshFailures = Counter.builder("currency_rates_refresh_failures")
+                .description("Number of failed currency rates refreshes")
+                .register(meterRegistry);
+        Gauge.builder("currency_rates_age_seconds", this, CurrencyRatesCache::currentAgeSeconds)
+                .description("Seconds since the current currency rates were loaded")
+                .register(meterRegistry);
     }
 
-    // TODO: handle edge case failure here
-    // TODO: prometheus gauge for date of latest currency?
-    // TODO: add unit testing
-    @Cacheable("currency-rates")
-    public CurrencyApiResponse fetchRates() {
-        // TODO: maybe extract url to env var?
-        final var response = this.restTemplate.getForEntity(
-                "https://api.frankfurter.dev/v1/latest?base=USD",
-                CurrencyApiResponse.class
-        );
-        if((HttpStatus.OK != response.getStatusCode()) || !"USD".equals(response.getBody().base())) {
-            log.error("failed to retrieve currency conversion rates");
-            throw new RuntimeException("unable to get USD rates");
+    /**
+     * Returns the current rates table, only fetching from the upstream if none has been loaded yet.
+     *
+     * @return the current rates table
+     */
+    public CurrencyRates getRates() {
+        final var current = this.rates.get();
+        if(current != null) {
+            return current;
+        }
+        try {
+            return refreshAsync().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
         }
-        return response.getBody();
     }
 
-    @CacheEvict("currency-rates")
     // Updated daily around CET 16:00, so give an hour extra for safety
-    @Scheduled(cron = "0 17 * * *", zone = "Europe/Berlin")
-    void evictRates() {}
+    @Scheduled(cron = "0 0 17 * * *", zone = "Europe/Berlin")
+    public void refresh() {
+        refreshAsync();
+    }
+
+    /**
+     * Fetches the latest rates from the upstream, joining any refresh already in flight.
+     *
+     * @return the current rates table once the fetch completes
+     */
+    public CompletableFuture<CurrencyRates> refreshAsync() {
+        return this.inFlightRefresh.run(() -> this.client.fetchUSDRates()
+                .thenApply(this::publish)
+                .whenComplete((loaded, failure) -> {
+                    if(failure != null) {
+                        this.refreshFailures.increment();
+                        log.error("failed to refresh currency conversion rates, keeping previous rates", failure);
+                    }
+                }));
+    }
+
+    private CurrencyRates publish(final CurrencyApiResponse response) {
+        // A lock rather than synchronized, which would pin a virtual thread to its carrier while publishing.
+        this.publishLock.lock();
+        try {
+            final var previous = this.rates.get();
+            if(previous != null && Objects.equals(previous.date(), response.date())) {
+                // Same publication as we already hold.
+                return previous;
+            }
+            final var loaded = CurrencyRates.of(response, previous == null ? 1 : previous.version() + 1, Instant.now());
+            this.rates.set(loaded);
+            log.info(String.format("loaded currency rates published %s", loaded.date()));
+            return loaded;
+        } finally {
+            this.publishLock.unlock();
+        }
+    }
+
+    private double currentAgeSeconds() {
+        final var current = this.rates.get();
+        return current == null ? Double.NaN : Duration.between(current.loadedAt(), Instant.now()).toMillis() / 1000.0;
+    }
 }
@@ -2,7 +2,6 @@ package dev.punchcafe.bazaar.currency;
 
 import org.springframework.stereotype.Component;
 
-import java.util.Locale;
 import java.util.Optional;
 
 /**
@@ -27,18 +26,20 @@ public class CurrencyService {
      * @return the converted amount
      */
     public Optional<Double> convertUSDTo(final double usd, final String currency){
-        final var currencyUppercase = currency.toUpperCase(Locale.ROOT);
-        if(USD_CURRENCY_LABEL.equals(currencyUppercase)) {
-            return Optional.of(usd);
-        }
-
-        final var rate = this.currencyRatesCache.fetchRates()
-                .rates()
-                .get(currencyUppercase);
+        return Optional.ofNullable(rate(currency)).map(rate -> rate.convertUSD(usd));
+    }
 
-        if(rate == null){
-            return Optional.empty();
+    /**
+     * Finds the current USD conversion rate for the given currency, ignoring case.
+     * Prefer this over {@link #convertUSDTo(double, String)} on hot paths, as it doesn't allocate.
+     *
+     * @param currency the string currency code
+     * @return the conversion rate, or null if the currency isn't known or supported.
+     */
+    public CurrencyRate rate(final String currency) {
+        if(USD_CURRENCY_LABEL.equalsIgnoreCase(currency)) {
+            return CurrencyRates.USD;
         }
-        return Optional.of(usd * rate);
+        return this.currencyRatesCache.getRates().rate(currency);
     }
 }
@@ -0,0 +1,14 @@
+package dev.punchcafe.bazaar.gateway;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a response body as it streams in from the upstream, rather than once it's all been buffered.
+ *
+ * @param <T> the result of reading the body
+ */
+@FunctionalInterface
+public interface BodyReader<T> {
+    T read(InputStream body) throws IOException;
+}
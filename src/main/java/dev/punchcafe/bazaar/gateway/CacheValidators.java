@@ -0,0 +1,30 @@
+package dev.punchcafe.bazaar.gateway;
+
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+
+/**
+ * The validators an upstream returned with a resource, used to make the next fetch of the resource conditional.
+ *
+ * @param etag the resource's ETag, if any
+ * @param lastModified the resource's Last-Modified date, if any
+ */
+public record CacheValidators(String etag, String lastModified) {
+
+    public static final CacheValidators NONE = new CacheValidators(null, null);
+
+    static CacheValidators from(final HttpHeaders headers) {
+        return new CacheValidators(
+                headers.firstValue("ETag").orElse(null),
+                headers.firstValue("Last-Modified").orElse(null));
+    }
+
+    void applyTo(final HttpRequest.Builder request) {
+        if(this.etag != null) {
+            request.header("If-None-Match", this.etag);
+        }
+        if(this.lastModified != null) {
+            request.header("If-Modified-Since", this.lastModified);
+        }
+    }
+}
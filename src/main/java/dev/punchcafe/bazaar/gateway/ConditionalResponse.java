@@ -0,0 +1,18 @@
+package dev.punchcafe.bazaar.gateway;
+
+/**
+ * The result of a conditional fetch.
+ *
+ * @param body the parsed body, or null if the resource hasn't been modified
+ * @param validators the validators to make the next fetch with
+ */
+public record ConditionalResponse<T>(T body, CacheValidators validators) {
+
+    static <T> ConditionalResponse<T> notModified(final CacheValidators validators) {
+        return new ConditionalResponse<>(null, validators);
+    }
+
+    public boolean modified() {
+        return this.body != null;
+    }
+}
@@ -0,0 +1,75 @@
+package dev.punchcafe.bazaar.gateway;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls: while a call is in flight, every other caller is handed the same future
+ * rather than starting a call of its own. Once it completes, the next caller starts a fresh call.
+ * A call which hasn't completed by the deadline fails every caller waiting on it, so a stuck call can't
+ * be shared forever.
+ *
+ * @param <T> the result of the call
+ */
+public final class SingleFlight<T> {
+
+    private final AtomicReference<CompletableFuture<T>> inFlight = new AtomicReference<>();
+    private final Duration timeout;
+
+    /**
+     * @param timeout how long a call may be in flight before it's abandoned.
+     */
+    public SingleFlight(final Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * @param call starts the call, if none is already in flight.
+     * @return the in-flight call's result; completes exceptionally with an {@link UpstreamException} if the
+     * call is still in flight at the deadline.
+     */
+    public CompletableFuture<T> run(final Supplier<CompletableFuture<T>> call) {
+        while(true) {
+            final var existing = this.inFlight.get();
+            if(existing != null) {
+                return existing;
+            }
+            final var shared = new CompletableFuture<T>();
+            if(this.inFlight.compareAndSet(null, shared)) {
+                start(call, shared);
+                return shared;
+            }
+        }
+    }
+
+    private void start(final Supplier<CompletableFuture<T>> call, final CompletableFuture<T> shared) {
+        final CompletableFuture<T> started;
+        try {
+            started = call.get();
+        } catch (RuntimeException e) {
+            this.inFlight.compareAndSet(shared, null);
+            shared.completeExceptionally(e);
+            return;
+        }
+        final var abandonAtDeadline = CompletableFuture.runAsync(
+                () -> {
+                    this.inFlight.compareAndSet(shared, null);
+                    shared.completeExceptionally(new UpstreamException(
+                            String.format("call still in flight after %s, abandoned", this.timeout)));
+                },
+                CompletableFuture.delayedExecutor(this.timeout.toNanos(), TimeUnit.NANOSECONDS));
+        started.whenComplete((result, failure) -> {
+            abandonAtDeadline.cancel(false);
+            // Clear before completing, so callers reacting to the result can start a fresh call.
+            this.inFlight.compareAndSet(shared, null);
+            if(failure != null) {
+                shared.completeExceptionally(failure);
+            } else {
+                shared.complete(result);
+            }
+        });
+    }
+}
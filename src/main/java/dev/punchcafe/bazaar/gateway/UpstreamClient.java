@@ -0,0 +1,224 @@
+package dev.punchcafe.bazaar.gateway;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking client for a single named upstream service.
+ * Requests share the underlying pooled {@link HttpClient}, and record their latency and failures
+ * tagged with the upstream's name. Each request, including reading its body, must complete within the
+ * read timeout.
+ */
+public final class UpstreamClient {
+
+    private final String name;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Duration readTimeout;
+    private final Executor bodyExecutor;
+    private final MeterRegistry meterRegistry;
+
+    UpstreamClient(
+            final String name,
+            final HttpClient httpClient,
+            final ObjectMapper objectMapper,
+            final Duration readTimeout,
+            final Executor bodyExecutor,
+            final MeterRegistry meterRegistry) {
+        this.name = name;
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.readTimeout = readTimeout;
+        this.bodyExecutor = bodyExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Issues a GET request and parses the JSON response body.
+     *
+     * @param uri the resource to fetch
+     * @param headers any additional request headers
+     * @param type the type to parse the response body into
+     * @return the parsed body; completes exceptionally with an {@link UpstreamException} on failure.
+     */
+    public <T> CompletableFuture<T> getJson(final URI uri, final Map<String, String> headers, final Class<T> type) {
+        return getJsonIfModified(uri, headers, CacheValidators.NONE, type).thenApply(ConditionalResponse::body);
+    }
+
+    /**
+     * Issues a conditional GET request, only parsing the JSON response body if the resource has been
+     * modified since the given validators were returned.
+     *
+     * @param uri the resource to fetch
+     * @param headers any additional request headers
+     * @param validators the validators returned by the previous fetch of the resource
+     * @param type the type to parse the response body into
+     * @return the parsed body if modified; completes exceptionally with an {@link UpstreamException} on failure.
+     */
+    public <T> CompletableFuture<ConditionalResponse<T>> getJsonIfModified(
+            final URI uri,
+            final Map<String, String> headers,
+            final CacheValidators validators,
+            final Class<T> type) {
+        final var typeReader = this.objectMapper.readerFor(type).without(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        return getIfModified(uri, headers, validators, typeReader::readValue);
+    }
+
+    /**
+     * Issues a conditional GET request, streaming the response body through the given reader if the
+     * resource has been modified since the given validators were returned.
+     * The body is never buffered in full, so readers can build their result as it arrives. Readers
+     * shouldn't close the body: any of it left unread is drained, so the connection can be reused.
+     *
+     * @param uri the resource to fetch
+     * @param headers any additional request headers
+     * @param validators the validators returned by the previous fetch of the resource
+     * @param reader reads the response body
+     * @return the read body if modified; completes exceptionally with an {@link UpstreamException} on failure.
+     */
+    public <T> CompletableFuture<ConditionalResponse<T>> getIfModified(
+            final URI uri,
+            final Map<String, String> headers,
+            final CacheValidators validators,
+            final BodyReader<T> reader) {
+        final var request = HttpRequest.newBuilder(uri)
+                .timeout(this.readTimeout)
+                .header("Accept", "application/json")
+                .GET();
+        headers.forEach(request::header);
+        validators.applyTo(request);
+
+        final var sample = Timer.start(this.meterRegistry);
+        final var deadline = System.nanoTime() + this.readTimeout.toNanos();
+        return this.httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofInputStream())
+                .handleAsync((response, failure) -> {
+                    if(failure != null) {
+                        final var outcome = unwrap(failure) instanceof HttpTimeoutException ? "timeout" : "io_error";
+                        stop(sample, outcome);
+                        recordError(outcome);
+                        throw new UpstreamException(
+                                String.format("request to %s failed", this.name), unwrap(failure));
+                    }
+                    return receive(response, validators, reader, sample, deadline);
+                }, this.bodyExecutor);
+    }
+
+    private <T> ConditionalResponse<T> receive(
+            final HttpResponse<InputStream> response,
+            final CacheValidators validators,
+            final BodyReader<T> reader,
+            final Timer.Sample sample,
+            final long deadline) {
+        final var body = response.body();
+        // The request's timeout only bounds the wait for the response headers. Closing the body at the
+        // deadline fails any read still blocked on a body which has stalled.
+        final var timedOut = new AtomicBoolean();
+        final var closeAtDeadline = CompletableFuture.runAsync(
+                () -> {
+                    timedOut.set(true);
+                    closeQuietly(body);
+                },
+                CompletableFuture.delayedExecutor(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+        final var outcome = outcome(response);
+        try(body) {
+            if(response.statusCode() == 304) {
+                body.transferTo(OutputStream.nullOutputStream());
+                return ConditionalResponse.notModified(validators);
+            }
+            if(response.statusCode() / 100 != 2) {
+                body.transferTo(OutputStream.nullOutputStream());
+                recordError(outcome);
+                throw new UpstreamException(String.format(
+                        "%s responded with status %d", this.name, response.statusCode()));
+            }
+            return new ConditionalResponse<>(read(body, reader, timedOut), CacheValidators.from(response.headers()));
+        } catch (IOException e) {
+            // Only thrown while draining or closing the body, once it's been read.
+            if(timedOut.get()) {
+                recordError("timeout");
+                throw new UpstreamException(String.format("timed out reading response from %s", this.name), e);
+            }
+            throw new UpstreamException(String.format("failed to release response from %s", this.name), e);
+        } finally {
+            closeAtDeadline.cancel(false);
+            stop(sample, timedOut.get() ? "timeout" : outcome);
+        }
+    }
+
+    private <T> T read(final InputStream body, final BodyReader<T> reader, final AtomicBoolean timedOut) {
+        try {
+            final var result = reader.read(body);
+            body.transferTo(OutputStream.nullOutputStream());
+            return result;
+        } catch (IOException e) {
+            if(timedOut.get()) {
+                recordError("timeout");
+                throw new UpstreamException(String.format("timed out reading response from %s", this.name), e);
+            }
+            recordError("invalid_body");
+            throw new UpstreamException(String.format("%s responded with an unreadable body", this.name),
+                    new UncheckedIOException(e));
+        }
+    }
+
+    private void stop(final Timer.Sample sample, final String outcome) {
+        sample.stop(Timer.builder("upstream_requests")
+                .description("Latency of requests to upstream services")
+                .tag("upstream", this.name)
+                .tag("outcome", outcome)
+                .register(this.meterRegistry));
+    }
+
+    private static void closeQuietly(final InputStream body) {
+        try {
+            body.close();
+        } catch (IOException e) {
+            // The read it unblocks reports the failure.
+        }
+    }
+
+    private void recordError(final String cause) {
+        Counter.builder("upstream_errors")
+                .description("Number of failed requests to upstream services")
+                .tag("upstream", this.name)
+                .tag("cause", cause)
+                .register(this.meterRegistry)
+                .increment();
+    }
+
+    private static String outcome(final HttpResponse<?> response) {
+        if(response.statusCode() == 304) {
+            return "not_modified";
+        }
+        return switch(response.statusCode() / 100) {
+            case 2 -> "success";
+            case 4 -> "client_error";
+            case 5 -> "server_error";
+            default -> "unexpected_status";
+        };
+    }
+
+    private static Throwable unwrap(final Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+}
@@ -0,0 +1,56 @@
+package dev.punchcafe.bazaar.gateway;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.punchcafe.bazaar.config.GatewayConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Hands out {@link UpstreamClient}s which all share the same connection pool and timeouts.
+ * Response bodies are read on a pool of their own: reading blocks until the body arrives, so is kept off
+ * the HTTP client's executor, which completes every in-flight request.
+ */
+@Component
+public class UpstreamClients {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final GatewayConfig gatewayConfig;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService bodyExecutor;
+
+    public UpstreamClients(
+            final HttpClient httpClient,
+            final ObjectMapper objectMapper,
+            final GatewayConfig gatewayConfig,
+            final MeterRegistry meterRegistry) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.gatewayConfig = gatewayConfig;
+        this.meterRegistry = meterRegistry;
+        this.bodyExecutor = gatewayConfig.newUpstreamBodyExecutor();
+    }
+
+    /**
+     * @param name the name of the upstream, used to tag its metrics.
+     * @return a client for the given upstream.
+     */
+    public UpstreamClient forUpstream(final String name) {
+        return new UpstreamClient(
+                name,
+                this.httpClient,
+                this.objectMapper,
+                this.gatewayConfig.getReadTimeout(),
+                this.bodyExecutor,
+                this.meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        this.bodyExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,15 @@
+package dev.punchcafe.bazaar.gateway;
+
+/**
+ * Thrown when an upstream service responds with an unexpected status, or can't be reached.
+ */
+public class UpstreamException extends RuntimeException {
+
+    public UpstreamException(final String message) {
+        super(message);
+    }
+
+    public UpstreamException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,90 @@
+package dev.punchcafe.bazaar.limits;
+
+import dev.punchcafe.bazaar.config.ConcurrencyLimitConfiguration;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of requests in flight at once, adapting the limit to their latency (AIMD).
+ * Each request which completes within the latency threshold grows the limit by one, while the limit is
+ * in use; each slow or failed request multiplies it by the backoff ratio. So when a dependency slows
+ * down, the limit quickly drops towards the number of requests it can actually serve, and excess
+ * requests are rejected straight away rather than queueing behind them.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile double limit;
+
+    public AdaptiveConcurrencyLimit(final ConcurrencyLimitConfiguration.Limit configuration) {
+        this.minLimit = configuration.getMinLimit();
+        this.maxLimit = configuration.getMaxLimit();
+        this.latencyThresholdNanos = configuration.getLatencyThreshold().toNanos();
+        this.backoffRatio = configuration.getBackoffRatio();
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, configuration.getInitialLimit()));
+    }
+
+    /**
+     * Takes a slot for a request, if the limit allows. A request given a slot must release it.
+     *
+     * @return whether the request may proceed.
+     */
+    public boolean tryAcquire() {
+        while(true) {
+            final int current = this.inFlight.get();
+            if(current >= limit()) {
+                this.rejected.incrementAndGet();
+                return false;
+            }
+            if(this.inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a request's slot, adapting the limit to how the request went.
+     *
+     * @param latency how long the request took
+     * @param unit the unit of the latency
+     * @param failed whether the request failed in a way which suggests overload, such as a server error.
+     */
+    public void release(final long latency, final TimeUnit unit, final boolean failed) {
+        final int inFlightBefore = this.inFlight.getAndDecrement();
+        synchronized(this) {
+            if(failed || unit.toNanos(latency) > this.latencyThresholdNanos) {
+                this.limit = Math.max(this.minLimit, this.limit * this.backoffRatio);
+            } else if(inFlightBefore * 2 >= this.limit) {
+                // Only grow while the limit is in use, so an idle limit doesn't drift up to the max.
+                this.limit = Math.min(this.maxLimit, this.limit + 1);
+            }
+        }
+    }
+
+    /**
+     * Releases a request's slot without adapting the limit, for requests whose latency says nothing about load
+     * (such as long-lived streaming responses).
+     */
+    public void release() {
+        this.inFlight.decrementAndGet();
+    }
+
+    public int limit() {
+        return (int) this.limit;
+    }
+
+    public int inFlight() {
+        return this.inFlight.get();
+    }
+
+    public long rejected() {
+        return this.rejected.get();
+    }
+}
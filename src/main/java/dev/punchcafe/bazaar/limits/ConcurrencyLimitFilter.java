@@ -0,0 +1,133 @@
+package dev.punchcafe.bazaar.limits;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.punchcafe.bazaar.api.schema.ErrorResponse;
+import dev.punchcafe.bazaar.config.ConcurrencyLimitConfiguration;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sheds package API requests beyond the read, write or export concurrency limit, with a 503 and a Retry-After,
+ * before they can tie up a request thread. Requests let through feed their latency back into the limit.
+ * Other endpoints, like health checks and metrics, are never shed.
+ */
+@Component
+class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String EXPORT_PATH = "/packages/export";
+
+    private final ConcurrencyLimits limits;
+    private final ConcurrencyLimitConfiguration configuration;
+    private final byte[] shedBody;
+
+    ConcurrencyLimitFilter(
+            final ConcurrencyLimits limits,
+            final ConcurrencyLimitConfiguration configuration,
+            final ObjectMapper objectMapper) throws IOException {
+        this.limits = limits;
+        this.configuration = configuration;
+        this.shedBody = objectMapper.writeValueAsBytes(new ErrorResponse("too many requests in flight, retry later"));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        final var path = request.getServletPath();
+        return !this.configuration.isEnabled() || !(path.startsWith("/packages") || path.startsWith("/products"));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            final HttpServletRequest request,
+            final HttpServletResponse response,
+            final FilterChain filterChain) throws ServletException, IOException {
+        final var limit = limitFor(request);
+        if(!limit.tryAcquire()) {
+            shed(response);
+            return;
+        }
+
+        final long startedAt = System.nanoTime();
+        var failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } finally {
+            if(request.isAsyncStarted()) {
+                // Streaming responses run for as long as they take to stream, so say nothing about load.
+                request.getAsyncContext().addListener(new ReleaseOnCompletion(limit));
+            } else {
+                limit.release(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS, failed);
+            }
+        }
+    }
+
+    private AdaptiveConcurrencyLimit limitFor(final HttpServletRequest request) {
+        if(!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return this.limits.write();
+        }
+        return EXPORT_PATH.equals(request.getServletPath()) ? this.limits.export() : this.limits.read();
+    }
+
+    private void shed(final HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(
+                HttpHeaders.RETRY_AFTER,
+                Long.toString(Math.max(1, this.configuration.getRetryAfter().toSeconds())));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(this.shedBody);
+    }
+
+    /**
+     * Releases the limit once the async response ends, however it ends. The container may report an error or
+     * timeout and then completion, so only the first releases.
+     */
+    private static final class ReleaseOnCompletion implements AsyncListener {
+        private final AdaptiveConcurrencyLimit limit;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ReleaseOnCompletion(final AdaptiveConcurrencyLimit limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void onComplete(final AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(final AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(final AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(final AsyncEvent event) {
+            // Re-register for the new async cycle, which otherwise wouldn't report its end.
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if(this.released.compareAndSet(false, true)) {
+                this.limit.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package dev.punchcafe.bazaar.limits;
+
+import dev.punchcafe.bazaar.config.ConcurrencyLimitConfiguration;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * The package API's concurrency limits: one for reads and one for writes, so slow writes can't starve
+ * cheap reads of capacity (or vice versa), and one for streaming exports, so long-running exports can't
+ * pin the read limit. Each limit's current value, requests in flight and rejections are exported,
+ * tagged by limit.
+ */
+@Component
+public class ConcurrencyLimits {
+
+    private final AdaptiveConcurrencyLimit read;
+    private final AdaptiveConcurrencyLimit write;
+    private final AdaptiveConcurrencyLimit export;
+
+    public ConcurrencyLimits(final ConcurrencyLimitConfiguration configuration, final MeterRegistry meterRegistry) {
+        this.read = monitor(new AdaptiveConcurrencyLimit(configuration.getRead()), "read", meterRegistry);
+        this.write = monitor(new AdaptiveConcurrencyLimit(configuration.getWrite()), "write", meterRegistry);
+        this.export = monitor(new AdaptiveConcurrencyLimit(configuration.getExport()), "export", meterRegistry);
+    }
+
+    public AdaptiveConcurrencyLimit read() {
+        return this.read;
+    }
+
+    public AdaptiveConcurrencyLimit write() {
+        return this.write;
+    }
+
+    public AdaptiveConcurrencyLimit export() {
+        return this.export;
+    }
+
+    private static AdaptiveConcurrencyLimit monitor(
+            final AdaptiveConcurrencyLimit limit,
+            final String name,
+            final MeterRegistry meterRegistry) {
+        Gauge.builder("concurrency_limit", limit, AdaptiveConcurrencyLimit::limit)
+                .description("The number of package API requests currently allowed in flight at once")
+                .tag("limit", name)
+                .register(meterRegistry);
+        Gauge.builder("concurrency_limit_in_flight", limit, AdaptiveConcurrencyLimit::inFlight)
+                .description("The number of package API requests in flight")
+                .tag("limit", name)
+                .register(meterRegistry);
+        FunctionCounter.builder("concurrency_limit_rejected", limit, AdaptiveConcurrencyLimit::rejected)
+                .description("Package API requests rejected for exceeding the concurrency limit")
+                .tag("limit", name)
+                .register(meterRegistry);
+        return limit;
+    }
+}
@@ -0,0 +1,101 @@
+package dev.punchcafe.bazaar.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.function.Supplier;
+
+/**
+ * Times the stages of a package request (hydration, validation, catalog lookup, currency conversion and
+ * serialization) in the {@value #METRIC} timer, tagged by stage along with the request's endpoint, page
+ * size bucket and currency. A controller tags the current request with {@link #begin}; stages timed on
+ * the request's thread, in any component, are then attributed to it. Stages timed outside of a tagged
+ * request aren't recorded.
+ */
+@Component
+public class RequestStages {
+
+    public static final String METRIC = "package_request_stage";
+
+    public static final String HYDRATE = "hydrate";
+    public static final String VALIDATE = "validate";
+    public static final String CATALOG_LOOKUP = "catalog_lookup";
+    public static final String CURRENCY_CONVERSION = "currency_conversion";
+    public static final String SERIALIZATION = "serialization";
+
+    private static final String TAGS_ATTRIBUTE = RequestStages.class.getName() + ".tags";
+
+    private final MeterRegistry meterRegistry;
+
+    public RequestStages(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Tags the stages of the current request.
+     *
+     * @param endpoint the endpoint handling the request
+     * @param pageSize the number of packages requested
+     * @param currency the code of the currency the packages are priced in
+     */
+    public void begin(final String endpoint, final int pageSize, final String currency) {
+        final var attributes = RequestContextHolder.getRequestAttributes();
+        if(attributes != null) {
+            attributes.setAttribute(
+                    TAGS_ATTRIBUTE,
+                    Tags.of("endpoint", endpoint, "page_size", pageSizeBucket(pageSize), "currency", currency),
+                    RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    public <T> T time(final String stage, final Supplier<T> work) {
+        final var tags = currentTags();
+        if(tags == null) {
+            return work.get();
+        }
+        final var sample = Timer.start(this.meterRegistry);
+        try {
+            return work.get();
+        } finally {
+            sample.stop(timer(stage, tags));
+        }
+    }
+
+    public void time(final String stage, final Runnable work) {
+        time(stage, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private Timer timer(final String stage, final Tags tags) {
+        return Timer.builder(METRIC)
+                .description("Time spent in each stage of handling a package request")
+                .tags(tags)
+                .tag("stage", stage)
+                .register(this.meterRegistry);
+    }
+
+    private static Tags currentTags() {
+        final var attributes = RequestContextHolder.getRequestAttributes();
+        return attributes == null ? null : (Tags) attributes.getAttribute(TAGS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    /**
+     * Buckets page sizes, so the page_size tag's cardinality stays fixed whatever clients request.
+     */
+    static String pageSizeBucket(final int pageSize) {
+        if(pageSize <= 1) {
+            return "1";
+        } else if(pageSize <= 10) {
+            return "2-10";
+        } else if(pageSize <= 100) {
+            return "11-100";
+        }
+        return "101+";
+    }
+}
@@ -0,0 +1,103 @@
+package dev.punchcafe.bazaar.metrics;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Wraps a message converter, timing how long each response takes to serialize as the request's
+ * {@link RequestStages#SERIALIZATION} stage. Everything else, including which types and media types the
+ * converter supports, is left to the wrapped converter.
+ *
+ * @param <T> the type of objects the wrapped converter reads and writes
+ */
+public class TimedHttpMessageConverter<T> implements GenericHttpMessageConverter<T> {
+
+    private final GenericHttpMessageConverter<T> delegate;
+    private final RequestStages requestStages;
+
+    public TimedHttpMessageConverter(final GenericHttpMessageConverter<T> delegate, final RequestStages requestStages) {
+        this.delegate = delegate;
+        this.requestStages = requestStages;
+    }
+
+    @Override
+    public boolean canRead(final Class<?> clazz, final MediaType mediaType) {
+        return this.delegate.canRead(clazz, mediaType);
+    }
+
+    @Override
+    public boolean canRead(final Type type, final Class<?> contextClass, final MediaType mediaType) {
+        return this.delegate.canRead(type, contextClass, mediaType);
+    }
+
+    @Override
+    public boolean canWrite(final Class<?> clazz, final MediaType mediaType) {
+        return this.delegate.canWrite(clazz, mediaType);
+    }
+
+    @Override
+    public boolean canWrite(final Type type, final Class<?> clazz, final MediaType mediaType) {
+        return this.delegate.canWrite(type, clazz, mediaType);
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes() {
+        return this.delegate.getSupportedMediaTypes();
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes(final Class<?> clazz) {
+        return this.delegate.getSupportedMediaTypes(clazz);
+    }
+
+    @Override
+    public T read(final Class<? extends T> clazz, final HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        return this.delegate.read(clazz, inputMessage);
+    }
+
+    @Override
+    public T read(final Type type, final Class<?> contextClass, final HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        return this.delegate.read(type, contextClass, inputMessage);
+    }
+
+    @Override
+    public void write(final T t, final MediaType contentType, final HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        time(() -> this.delegate.write(t, contentType, outputMessage));
+    }
+
+    @Override
+    public void write(final T t, final Type type, final MediaType contentType, final HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        time(() -> this.delegate.write(t, type, contentType, outputMessage));
+    }
+
+    private void time(final Write write) throws IOException {
+        try {
+            this.requestStages.time(RequestStages.SERIALIZATION, () -> {
+                try {
+                    write.write();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private interface Write {
+        void write() throws IOException;
+    }
+}
@@ -4,7 +4,10 @@ import lombok.Builder;
 
 import java.util.List;
 
+/**
+ * @param version incremented every time the package, or its products, change.
+ */
 @Builder
-public record Package(long id, String name, String description, List<String> productIds) {
+public record Package(long id, long version, String name, String description, List<String> productIds) {
 
 }
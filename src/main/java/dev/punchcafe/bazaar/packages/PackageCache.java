@@ -0,0 +1,76 @@
+package dev.punchcafe.bazaar.packages;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.punchcafe.bazaar.config.PackageCacheConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * A bounded, read-through cache of hydrated packages, keyed by package id.
+ * Entries are evicted by size (W-TinyLFU), so the most popular packages stay in memory, and expire a fixed
+ * time after they're written, so changes made by other instances are picked up eventually.
+ * Writers must {@link #put(Package)} or {@link #delete(long)} a package once their change has been
+ * committed: both wait for any load of that package in flight, so a load which read the old rows can't be
+ * left behind in the cache. Concurrent writers may put what they read out of order, so the cache keeps
+ * the highest version of a package, and a deleted package stays deleted.
+ */
+@Component
+class PackageCache {
+
+    // An empty entry is the tombstone of a deleted package.
+    private final Cache<Long, Optional<Package>> packages;
+
+    PackageCache(final PackageCacheConfiguration configuration, final MeterRegistry meterRegistry) {
+        this.packages = Caffeine.newBuilder()
+                .maximumWeight(configuration.getMaximumWeight())
+                .weigher((Long id, Optional<Package> pkg) -> 1 + pkg.map(p -> p.productIds().size()).orElse(0))
+                .expireAfterWrite(configuration.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, this.packages, "packages");
+    }
+
+    /**
+     * Returns the cached package, loading and caching it if absent.
+     * Packages which don't exist aren't cached, as another instance may yet create them.
+     *
+     * @param id the id of the package
+     * @param loader loads the package from the database
+     * @return the package, if it exists.
+     */
+    Optional<Package> get(final long id, final Function<Long, Optional<Package>> loader) {
+        final var cached = this.packages.get(id, key -> {
+            final var loaded = loader.apply(key);
+            return loaded.isPresent() ? loaded : null;
+        });
+        return cached == null ? Optional.empty() : cached;
+    }
+
+    /**
+     * Caches a package just written to the primary, so later reads see it even while a read replica lags behind.
+     */
+    void put(final Package pkg) {
+        this.packages.asMap().merge(pkg.id(), Optional.of(pkg), PackageCache::newer);
+    }
+
+    /**
+     * Leaves a tombstone for a package just deleted from the primary, so later reads don't find it on a read
+     * replica which lags behind. The tombstone lasts until it expires.
+     */
+    void delete(final long id) {
+        this.packages.put(id, Optional.empty());
+    }
+
+    private static Optional<Package> newer(final Optional<Package> existing, final Optional<Package> replacement) {
+        // Package ids are never reused, so whatever was read before a delete is stale.
+        if(existing.isEmpty()) {
+            return existing;
+        }
+        return existing.get().version() > replacement.get().version() ? existing : replacement;
+    }
+}
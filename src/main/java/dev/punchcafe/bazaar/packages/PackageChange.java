@@ -0,0 +1,14 @@
+package dev.punchcafe.bazaar.packages;
+
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * A single package create or update within a bulk change.
+ *
+ * @param id the id of the package to update, or null to create a new package
+ */
+@Builder
+public record PackageChange(Long id, String name, String description, List<String> productIds) {
+}
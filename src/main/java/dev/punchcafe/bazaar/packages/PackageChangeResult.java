@@ -0,0 +1,23 @@
+package dev.punchcafe.bazaar.packages;
+
+/**
+ * The outcome of a single change within a bulk change: either the written package, or the reason it failed.
+ */
+public record PackageChangeResult(Package pkg, boolean created, RuntimeException failure) {
+
+    static PackageChangeResult created(final Package pkg) {
+        return new PackageChangeResult(pkg, true, null);
+    }
+
+    static PackageChangeResult updated(final Package pkg) {
+        return new PackageChangeResult(pkg, false, null);
+    }
+
+    static PackageChangeResult failed(final RuntimeException failure) {
+        return new PackageChangeResult(null, false, failure);
+    }
+
+    public boolean succeeded() {
+        return this.failure == null;
+    }
+}
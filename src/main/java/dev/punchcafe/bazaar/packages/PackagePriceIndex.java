@@ -0,0 +1,249 @@
+package dev.punchcafe.bazaar.packages;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import dev.punchcafe.bazaar.config.PackageCacheConfiguration;
+import dev.punchcafe.bazaar.products.ProductCatalog;
+import dev.punchcafe.bazaar.products.ProductCatalogRefreshedEvent;
+import dev.punchcafe.bazaar.products.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps the total USD price of recently used packages, so reads don't need to re-sum every product.
+ * Entries are maintained incrementally: by the PackageService whenever package membership changes,
+ * and on catalog refreshes, which find the packages containing a changed product through a reverse index
+ * of products to packages, and only re-sum those. Every other entry stays valid for the new catalog
+ * without being touched.
+ * The index is bounded like the package cache, so packages which stop being read (or are deleted by
+ * another instance) are evicted rather than held forever.
+ */
+@Slf4j
+@Component
+public class PackagePriceIndex {
+
+    private static final long NO_CATALOG = Long.MIN_VALUE;
+
+    private final ProductService productService;
+    private final Cache<Long, PricedPackage> pricesByPackage;
+    // Only ever changed along with the entry for the package, within the same compute.
+    private final Map<String, Set<Long>> packagesByProduct = new ConcurrentHashMap<>();
+    // Entries are written under the read lock, and catalog refreshes applied under the write lock, so a
+    // refresh sees every entry priced against the catalog it replaces.
+    private final ReadWriteLock refreshLock = new ReentrantReadWriteLock();
+    // Entries are valid for the latest catalog if priced against it, or against any catalog since
+    // validSince which the refreshes applied since haven't repriced.
+    private volatile long latestCatalogVersion = NO_CATALOG;
+    private volatile long validSince = NO_CATALOG;
+
+    public PackagePriceIndex(
+            final ProductService productService,
+            final PackageCacheConfiguration configuration,
+            final MeterRegistry meterRegistry) {
+        this.productService = productService;
+        this.pricesByPackage = Caffeine.newBuilder()
+                .maximumWeight(configuration.getMaximumWeight())
+                .weigher((Long id, PricedPackage priced) -> 1 + priced.productIds().size())
+                .expireAfterWrite(configuration.getExpireAfterWrite())
+                // Called within the eviction, so the reverse index never outlives its entry.
+                .evictionListener((Long id, PricedPackage priced, RemovalCause cause) -> {
+                    if(id != null && priced != null) {
+                        unlink(id, priced.productIds());
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, this.pricesByPackage, "package_prices");
+    }
+
+    /**
+     * Returns the total USD price of the given package, pricing and indexing it if it hasn't been already.
+     *
+     * @param pkg the package to price
+     * @return the sum of the USD prices of all products in the package
+     */
+    public int usdTotal(final Package pkg) {
+        final var catalog = this.productService.catalog();
+        final var existing = this.pricesByPackage.getIfPresent(pkg.id());
+        if(existing != null && isCurrent(existing, pkg, catalog)) {
+            return existing.usdTotal();
+        }
+        return index(pkg, catalog).usdTotal();
+    }
+
+    /**
+     * Returns the total USD price of the given package in the given catalog snapshot, without
+     * indexing it. Use this to price many packages against a single snapshot, without filling the index.
+     *
+     * @param pkg the package to price
+     * @param catalog the catalog snapshot to price against
+     * @return the sum of the USD prices of all products in the package
+     */
+    public int usdTotal(final Package pkg, final ProductCatalog catalog) {
+        final var existing = this.pricesByPackage.getIfPresent(pkg.id());
+        if(existing != null && isCurrent(existing, pkg, catalog)) {
+            return existing.usdTotal();
+        }
+        return price(pkg.id(), pkg.version(), pkg.productIds(), catalog).usdTotal();
+    }
+
+    /**
+     * (Re)prices the given package against the current catalog.
+     *
+     * @param pkg the package whose membership may have changed
+     */
+    public void put(final Package pkg) {
+        index(pkg, this.productService.catalog());
+    }
+
+    /**
+     * Removes a package from the index.
+     *
+     * @param packageId the id of the deleted package
+     */
+    public void remove(final long packageId) {
+        this.pricesByPackage.asMap().computeIfPresent(packageId, (id, existing) -> {
+            unlink(id, existing.productIds());
+            return null;
+        });
+    }
+
+    /**
+     * Reprices only the packages containing a changed product, found through the reverse index. Entries
+     * priced against the previous catalog which don't contain a changed product are left as they are, and
+     * stay valid for the new catalog. If a refresh was missed, every entry is repriced as it's next read.
+     */
+    @EventListener
+    public void onCatalogRefreshed(final ProductCatalogRefreshedEvent event) {
+        final var current = event.current();
+        this.refreshLock.writeLock().lock();
+        try {
+            if(current.version() <= this.latestCatalogVersion) {
+                return;
+            }
+            if(event.previous().version() != this.latestCatalogVersion) {
+                this.validSince = current.version();
+                this.latestCatalogVersion = current.version();
+                log.info(String.format("dropped package prices for catalog version %d", current.version()));
+                return;
+            }
+            final var affected = new HashSet<Long>();
+            for(final var productId : event.changes().productIds()) {
+                affected.addAll(this.packagesByProduct.getOrDefault(productId, Set.of()));
+            }
+            for(final var packageId : affected) {
+                this.pricesByPackage.asMap().computeIfPresent(packageId, (id, existing) ->
+                        price(id, existing.packageVersion(), existing.productIds(), current));
+            }
+            this.latestCatalogVersion = current.version();
+            log.info(String.format(
+                    "repriced %d packages for catalog version %d",
+                    affected.size(),
+                    current.version()));
+        } finally {
+            this.refreshLock.writeLock().unlock();
+        }
+    }
+
+    private boolean isCurrent(final PricedPackage priced, final Package pkg, final ProductCatalog catalog) {
+        return priced.packageVersion() == pkg.version()
+                && catalog.version() == this.latestCatalogVersion
+                && priced.catalogVersion() >= this.validSince
+                && priced.catalogVersion() <= catalog.version();
+    }
+
+    private PricedPackage index(final Package pkg, final ProductCatalog catalog) {
+        final var priced = price(pkg.id(), pkg.version(), pkg.productIds(), catalog);
+        this.refreshLock.readLock().lock();
+        try {
+            if(this.latestCatalogVersion == NO_CATALOG) {
+                // Nothing's been indexed yet, so start from whichever catalog is first priced against.
+                adopt(catalog);
+            }
+            if(catalog.version() != this.latestCatalogVersion) {
+                // Priced against a catalog which a refresh has replaced, or which hasn't been applied yet.
+                return priced;
+            }
+            this.pricesByPackage.asMap().compute(pkg.id(), (id, existing) -> {
+                // Priced from a stale read of a package which has since changed; keep the newer entry.
+                if(existing != null && existing.packageVersion() > priced.packageVersion()) {
+                    return existing;
+                }
+                relink(id, existing == null ? Set.of() : existing.productIds(), priced.productIds());
+                return priced;
+            });
+            return priced;
+        } finally {
+            this.refreshLock.readLock().unlock();
+        }
+    }
+
+    private synchronized void adopt(final ProductCatalog catalog) {
+        if(this.latestCatalogVersion == NO_CATALOG) {
+            this.validSince = catalog.version();
+            this.latestCatalogVersion = catalog.version();
+        }
+    }
+
+    private void relink(final long packageId, final Set<String> previous, final Set<String> current) {
+        for(final var productId : previous) {
+            if(!current.contains(productId)) {
+                unlink(packageId, productId);
+            }
+        }
+        for(final var productId : current) {
+            if(!previous.contains(productId)) {
+                this.packagesByProduct.computeIfAbsent(productId, key -> ConcurrentHashMap.newKeySet()).add(packageId);
+            }
+        }
+    }
+
+    private void unlink(final long packageId, final Set<String> productIds) {
+        for(final var productId : productIds) {
+            unlink(packageId, productId);
+        }
+    }
+
+    private void unlink(final long packageId, final String productId) {
+        this.packagesByProduct.computeIfPresent(productId, (key, packageIds) -> {
+            packageIds.remove(packageId);
+            return packageIds.isEmpty() ? null : packageIds;
+        });
+    }
+
+    private PricedPackage price(
+            final long packageId,
+            final long packageVersion,
+            final Collection<String> productIds,
+            final ProductCatalog catalog) {
+        int total = 0;
+        for(final var productId : productIds) {
+            // TODO: confirm business requirements for this case.
+            final var price = catalog.usdPrice(productId);
+            if(price == null) {
+                log.error(String.format("Unexpected error: package ID %d contains unknown product ID %s", packageId, productId));
+            } else {
+                total += price;
+            }
+        }
+        return new PricedPackage(packageVersion, Set.copyOf(productIds), total, catalog.version());
+    }
+
+    /**
+     * @param catalogVersion the version of the catalog the package was last priced against
+     */
+    private record PricedPackage(long packageVersion, Set<String> productIds, int usdTotal, long catalogVersion) {
+    }
+}
@@ -1,57 +1,87 @@
 package dev.punchcafe.bazaar.packages;
 
+import dev.punchcafe.bazaar.packages.exceptions.DuplicatePackageIdException;
 import dev.punchcafe.bazaar.packages.exceptions.DuplicateProductIdException;
 import dev.punchcafe.bazaar.packages.exceptions.EntityNotFoundException;
 import dev.punchcafe.bazaar.packages.model.PackageOrm;
 import dev.punchcafe.bazaar.packages.model.PackageProduct;
 import dev.punchcafe.bazaar.packages.model.PackageProductId;
+import dev.punchcafe.bazaar.packages.model.PackageProductRow;
 import dev.punchcafe.bazaar.packages.repository.AtomicOperator;
+import dev.punchcafe.bazaar.packages.repository.BulkPackageWriter;
 import dev.punchcafe.bazaar.packages.repository.PackageProductRepository;
 import dev.punchcafe.bazaar.packages.repository.PackageRepository;
+import dev.punchcafe.bazaar.packages.repository.PackageWrite;
 import io.micrometer.core.annotation.Timed;
 import lombok.NonNull;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * The PackageService encapsulates all persistent operations involving Packages.
+ * Product IDs are interned as packages are read, so the many packages sharing a product share one
+ * String for its ID, rather than each holding a copy.
  */
 @Component
 public class PackageService {
     // TODO: add unit tests.
 
+    private static final int PRELOAD_PAGE_SIZE = 1000;
+
     private final PackageRepository packageRepository;
     private final PackageProductRepository packageProductRepository;
     private final AtomicOperator atomicOperator;
+    private final BulkPackageWriter bulkPackageWriter;
+    private final PackagePriceIndex packagePriceIndex;
+    private final PackageCache packageCache;
+    // Reads run in read-only transactions, which are routed to the read replica when one is configured.
+    // Reads which must see the latest writes run in read-write transactions instead, so always go to the primary.
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate readWriteTransaction;
 
     public PackageService(
             final PackageRepository packageRepository,
             final PackageProductRepository packageProductRepository,
-            final AtomicOperator atomicOperator
+            final AtomicOperator atomicOperator,
+            final BulkPackageWriter bulkPackageWriter,
+            final PackagePriceIndex packagePriceIndex,
+            final PackageCache packageCache,
+            final PlatformTransactionManager transactionManager
     ) {
         this.packageRepository = packageRepository;
         this.packageProductRepository = packageProductRepository;
         this.atomicOperator = atomicOperator;
+        this.bulkPackageWriter = bulkPackageWriter;
+        this.packagePriceIndex = packagePriceIndex;
+        this.packageCache = packageCache;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readWriteTransaction = new TransactionTemplate(transactionManager);
     }
 
     /**
-     * Retrieves a package by its id.
+     * Retrieves a package by its id, from the package cache where possible.
      * @param id the id of the package
      * @return an optional containing the package. Empty if no package found with that ID.
      */
     @Timed("get_package")
     public Optional<Package> get(final long id) {
-        final var existingPackage = packageRepository.findById(id);
-        if(existingPackage.isEmpty()) {
-            return Optional.empty();
-        }
-        final var packageProducts = lookupProducts(id);
-        return Optional.of(ormToModel(existingPackage.get(), packageProducts));
+        return this.packageCache.get(id, key -> this.readOnlyTransaction.execute(status -> hydrate(key)));
     }
 
     /**
@@ -70,15 +100,12 @@ public class PackageService {
                 .description(description)
                 .build();
 
-        final var createdPackage = packageRepository.save(newEntity);
-        final var products = productIds.stream().map(
-                id -> buildPackageProduct(id, createdPackage.getId())
-        ).toList();
+        final var createdPackage = this.atomicOperator.createPackageAndProducts(newEntity, productIds);
 
-        // TODO: make transactional and try and fix in JPA mapping
-        final List<PackageProduct> savedProducts = this.packageProductRepository.saveAll(products);
-
-        return ormToModel(createdPackage, savedProducts);
+        final var created = writeToModel(createdPackage.getId(), new PackageWrite(createdPackage, productIds));
+        this.packageCache.put(created);
+        this.packagePriceIndex.put(created);
+        return created;
     }
 
     /**
@@ -95,30 +122,101 @@ public class PackageService {
     @Timed("update_packages")
     public Package update(final long id, final String name, final String description, @NonNull final List<String> productIds) {
         validateProductIds(productIds);
-        final var existingPackage = packageRepository.findById(id).orElseThrow(EntityNotFoundException::new);
-        final var existingProducts = lookupProducts(existingPackage.getId());
-
-        // TODO: replace with JPA annotations and better joins
-        final var existingProductIds = productIds(existingProducts);
+        final var existingPackage = this.readWriteTransaction.execute(status -> hydrate(id))
+                .orElseThrow(EntityNotFoundException::new);
+        final var existingProductIds = new HashSet<>(existingPackage.productIds());
+        final var requestedProductIds = new HashSet<>(productIds);
 
-        final var updatedEntity = existingPackage.toBuilder()
+        final var updatedEntity = PackageOrm.builder()
+                .id(existingPackage.id())
                 .name(name)
                 .description(description)
                 .build();
 
-        final var deletedProducts = existingProducts.stream()
-                .filter(packageProduct -> !productIds.contains(packageProduct.getId().getProductId()))
+        final var deletedProductIds = existingProductIds.stream()
+                .filter(productId -> !requestedProductIds.contains(productId))
                 .toList();
 
-        final var addedProducts = productIds.stream()
+        final var addedProductIds = productIds.stream()
                 .filter(productId -> !existingProductIds.contains(productId))
-                .map(productId -> buildPackageProduct(productId, existingPackage.getId()))
                 .toList();
 
-        final var persistedEntity = this.atomicOperator.updatePackageAndProducts(updatedEntity, addedProducts, deletedProducts);
-        final var updatedProducts = packageProductRepository.findAllById_PackageId(existingPackage.getId());
+        this.atomicOperator.updatePackageAndProducts(updatedEntity, addedProductIds, deletedProductIds);
+
+        final var updated = this.readWriteTransaction.execute(status -> hydrate(id))
+                .orElseThrow(EntityNotFoundException::new);
+        this.packageCache.put(updated);
+        this.packagePriceIndex.put(updated);
+        return updated;
+    }
+
+    /**
+     * Creates and updates many packages in a single transaction, using batched writes.
+     * Each change is validated individually: invalid changes are reported in the results and
+     * skipped, while all valid changes are written together.
+     *
+     * @param changes the packages to create (those without an id) or update.
+     * @return the outcome of each change, in the same order as the changes.
+     */
+    @Timed("bulk_change_packages")
+    public List<PackageChangeResult> bulkChange(final List<PackageChange> changes) {
+        final var requestedUpdateIds = changes.stream()
+                .map(PackageChange::id)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        final var existingIds = requestedUpdateIds.isEmpty()
+                ? Set.<Long>of()
+                : new HashSet<>(this.readWriteTransaction.execute(status -> packageRepository.findExistingIds(requestedUpdateIds)));
+
+        final var results = new PackageChangeResult[changes.size()];
+        final var creates = new ArrayList<PackageWrite>();
+        final var createIndexes = new ArrayList<Integer>();
+        final var updates = new ArrayList<PackageWrite>();
+        final var updateIndexes = new ArrayList<Integer>();
+        final var seenUpdateIds = new HashSet<Long>();
+
+        for(int i = 0; i < changes.size(); i++) {
+            final var change = changes.get(i);
+            final var entity = PackageOrm.builder()
+                    .id(change.id())
+                    .name(change.name())
+                    .description(change.description())
+                    .build();
+            if(new HashSet<>(change.productIds()).size() != change.productIds().size()) {
+                results[i] = PackageChangeResult.failed(new DuplicateProductIdException());
+            } else if(change.id() == null) {
+                creates.add(new PackageWrite(entity, change.productIds()));
+                createIndexes.add(i);
+            } else if(!existingIds.contains(change.id())) {
+                results[i] = PackageChangeResult.failed(new EntityNotFoundException());
+            } else if(!seenUpdateIds.add(change.id())) {
+                results[i] = PackageChangeResult.failed(new DuplicatePackageIdException());
+            } else {
+                updates.add(new PackageWrite(entity, change.productIds()));
+                updateIndexes.add(i);
+            }
+        }
 
-        return ormToModel(persistedEntity, updatedProducts);
+        final var written = this.bulkPackageWriter.writeAll(creates, updates);
+
+        for(int i = 0; i < creates.size(); i++) {
+            final var created = writeToModel(written.createdIds().get(i), creates.get(i));
+            this.packageCache.put(created);
+            this.packagePriceIndex.put(created);
+            results[createIndexes.get(i)] = PackageChangeResult.created(created);
+        }
+        for(int i = 0; i < updates.size(); i++) {
+            if(written.missingIds().contains(updates.get(i).entity().getId())) {
+                // Deleted by another request since its existence was checked.
+                results[updateIndexes.get(i)] = PackageChangeResult.failed(new EntityNotFoundException());
+                continue;
+            }
+            final var updated = writeToModel(updates.get(i).entity().getId(), updates.get(i));
+            this.packageCache.put(updated);
+            this.packagePriceIndex.put(updated);
+            results[updateIndexes.get(i)] = PackageChangeResult.updated(updated);
+        }
+        return Arrays.asList(results);
     }
 
     /**
@@ -133,22 +231,126 @@ public class PackageService {
 
         final var pageRequest = PageRequest.of(pageNumber,pageSize);
 
-        final var allPackages = packageRepository.findAll(pageRequest);
-        final var allPackageIds = allPackages.stream().map(PackageOrm::getId).toList();
-        final var allPackageProducts = packageProductRepository.findAllById_PackageIdIn(allPackageIds)
-                .stream()
-                .collect(Collectors.groupingBy(packageProduct -> packageProduct.getId().getPackageId()));
+        return this.readOnlyTransaction.execute(status -> withProducts(packageRepository.findAll(pageRequest).getContent()));
+    }
 
-        return allPackages
+    /**
+     * Retrieves the packages with the given ids, with one query for the packages and one for their products.
+     *
+     * @param ids the ids of the packages to retrieve.
+     * @return the packages found, in the order their ids were given. Ids with no package are left out.
+     */
+    @Timed("get_packages")
+    public List<Package> getAll(final Collection<Long> ids) {
+        if(ids.isEmpty()) {
+            return List.of();
+        }
+        final var packagesById = this.readOnlyTransaction.execute(status -> withProducts(this.packageRepository.findAllById(ids)))
                 .stream()
-                .map(packageOrmEnity ->
-                        ormToModel(
-                                packageOrmEnity,
-                                allPackageProducts.getOrDefault(packageOrmEnity.getId(), List.of()))
-                )
+                .collect(Collectors.toMap(Package::id, Function.identity()));
+        return ids.stream()
+                .map(packagesById::get)
+                .filter(Objects::nonNull)
                 .toList();
     }
 
+    /**
+     * Retrieves the page of packages following the given package id, in id order.
+     * Unlike {@link #pagenatedPackages(int, int)}, this seeks straight to the page rather than
+     * scanning an offset and doesn't count the table, so every page costs the same.
+     *
+     * @param lastSeenId the id of the last package on the previous page, or 0 for the first page.
+     * @param pageSize the maximum number of packages to return.
+     * @return the list of packages on that page.
+     */
+    @Timed("pagenate_packages_after")
+    public List<Package> packagesAfter(final long lastSeenId, final int pageSize) {
+        return this.readOnlyTransaction.execute(status ->
+                withProducts(packageRepository.findAllByIdGreaterThanOrderByIdAsc(lastSeenId, PageRequest.ofSize(pageSize))));
+    }
+
+    /**
+     * Loads the first packages, in id order, into the package cache and price index.
+     * Each package is loaded through the cache, exactly as {@link #get(long)} would, so a concurrent
+     * write can't leave a stale package behind.
+     *
+     * @param count the number of packages to load
+     * @return the number of packages loaded, fewer than count if there aren't that many.
+     */
+    public int preload(final int count) {
+        int loaded = 0;
+        long lastSeenId = 0;
+        while(loaded < count) {
+            final var page = this.packageRepository.findAllByIdGreaterThanOrderByIdAsc(
+                    lastSeenId, PageRequest.ofSize(Math.min(PRELOAD_PAGE_SIZE, count - loaded)));
+            if(page.isEmpty()) {
+                break;
+            }
+            for(final var entity : page) {
+                get(entity.getId()).ifPresent(this.packagePriceIndex::usdTotal);
+            }
+            loaded += page.size();
+            lastSeenId = page.get(page.size() - 1).getId();
+        }
+        return loaded;
+    }
+
+    /**
+     * Retrieves the page of packages containing the given product, following the given package id, in id order.
+     * Packages are found whether or not the product is still in the catalog.
+     *
+     * @param productId the id of the product
+     * @param lastSeenId the id of the last package on the previous page, or 0 for the first page.
+     * @param pageSize the maximum number of packages to return.
+     * @return the list of packages on that page.
+     */
+    @Timed("pagenate_packages_containing_product")
+    public List<Package> packagesContaining(final String productId, final long lastSeenId, final int pageSize) {
+        return this.readOnlyTransaction.execute(status -> {
+            final var packageIds = this.packageProductRepository.findPackageIdsContainingProduct(
+                    productId, lastSeenId, PageRequest.ofSize(pageSize));
+            if(packageIds.isEmpty()) {
+                return List.<Package>of();
+            }
+            final var packages = new ArrayList<>(this.packageRepository.findAllById(packageIds));
+            packages.sort(Comparator.comparing(PackageOrm::getId));
+            return withProducts(packages);
+        });
+    }
+
+    /**
+     * Passes every package, in id order, to the given consumer as it's read from the database.
+     * Packages are never all held in memory at once, so this is suitable for exporting every package.
+     *
+     * @param consumer called with each package in turn.
+     */
+    @Timed("export_packages")
+    public void forEachPackage(final Consumer<Package> consumer) {
+        this.readOnlyTransaction.executeWithoutResult(status -> {
+            try(final var rows = this.packageRepository.streamAllWithProducts()) {
+                PackageProductRow packageRow = null;
+                var productIds = new ArrayList<String>();
+                for(final var iterator = rows.iterator(); iterator.hasNext(); ) {
+                    final var row = iterator.next();
+                    if(packageRow == null || !packageRow.packageId().equals(row.packageId())) {
+                        // Rows are ordered by package, so the previous package is complete.
+                        if(packageRow != null) {
+                            consumer.accept(rowToModel(packageRow, productIds));
+                        }
+                        packageRow = row;
+                        productIds = new ArrayList<>();
+                    }
+                    if(row.productId() != null) {
+                        productIds.add(row.productId().intern());
+                    }
+                }
+                if(packageRow != null) {
+                    consumer.accept(rowToModel(packageRow, productIds));
+                }
+            }
+        });
+    }
+
     /**
      * Deletes the given package.
      * Throws an EntityNotFoundException if the package doesn't exist.
@@ -157,20 +359,57 @@ public class PackageService {
      */
     @Timed("delete_package")
     public void delete(final long id) {
-        final var existingPackage = packageRepository.findById(id).orElseThrow(EntityNotFoundException::new);
+        final var existingPackage = this.readWriteTransaction.execute(status -> packageRepository.findById(id))
+                .orElseThrow(EntityNotFoundException::new);
         this.atomicOperator.deletePackageAndProducts(existingPackage);
+        this.packageCache.delete(id);
+        this.packagePriceIndex.remove(id);
     }
 
-    private List<PackageProduct> lookupProducts(final long id){
-        return packageProductRepository.findAllById_PackageId(id)
+    private List<Package> withProducts(final List<PackageOrm> packages) {
+        final var allPackageIds = packages.stream().map(PackageOrm::getId).toList();
+        final var allPackageProducts = packageProductRepository.findAllById_PackageIdIn(allPackageIds)
+                .stream()
+                .collect(Collectors.groupingBy(packageProduct -> packageProduct.getId().getPackageId()));
+
+        return packages
                 .stream()
+                .map(packageOrmEnity ->
+                        ormToModel(
+                                packageOrmEnity,
+                                allPackageProducts.getOrDefault(packageOrmEnity.getId(), List.of()))
+                )
+                .toList();
+    }
+
+    private Optional<Package> hydrate(final long id) {
+        final var rows = packageRepository.findWithProductsById(id);
+        if(rows.isEmpty()) {
+            return Optional.empty();
+        }
+        final var productIds = rows.stream()
+                .map(PackageProductRow::productId)
+                .filter(Objects::nonNull)
+                .map(String::intern)
                 .toList();
+        return Optional.of(rowToModel(rows.get(0), productIds));
+    }
+
+    private Package rowToModel(final PackageProductRow packageRow, final List<String> productIds) {
+        return Package.builder()
+                .id(packageRow.packageId())
+                .version(packageRow.version())
+                .name(packageRow.name())
+                .description(packageRow.description())
+                .productIds(productIds)
+                .build();
     }
 
     private List<String> productIds(final List<PackageProduct> packageProducts){
         return packageProducts.stream()
                 .map(PackageProduct::getId)
                 .map(PackageProductId::getProductId)
+                .map(String::intern)
                 .toList();
     }
 
@@ -178,19 +417,20 @@ public class PackageService {
     private Package ormToModel(final PackageOrm model, final List<PackageProduct> packageProducts) {
         return Package.builder()
                 .id(model.getId())
+                .version(model.getVersion())
                 .name(model.getName())
                 .productIds(productIds(packageProducts))
                 .description(model.getDescription())
                 .build();
     }
 
-    private PackageProduct buildPackageProduct(final String productId, final long packageId) {
-        return PackageProduct.builder()
-                .id(
-                        PackageProductId.builder()
-                                .packageId(packageId)
-                                .productId(productId)
-                                .build())
+    private Package writeToModel(final long id, final PackageWrite write) {
+        return Package.builder()
+                .id(id)
+                .version(write.entity().getVersion())
+                .name(write.entity().getName())
+                .productIds(write.productIds().stream().map(String::intern).toList())
+                .description(write.entity().getDescription())
                 .build();
     }
 
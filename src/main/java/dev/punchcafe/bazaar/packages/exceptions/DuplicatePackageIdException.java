@@ -0,0 +1,4 @@
+package dev.punchcafe.bazaar.packages.exceptions;
+
+public class DuplicatePackageIdException extends RuntimeException {
+}
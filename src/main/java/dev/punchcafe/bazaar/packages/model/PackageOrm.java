@@ -19,4 +19,8 @@ public class PackageOrm {
     private Long id;
     @Column private String name;
     @Column private String description;
+    /**
+     * Only ever incremented in the database, so concurrent writers can't reuse a version.
+     */
+    @Column(insertable = false, updatable = false) private long version;
 }
@@ -0,0 +1,8 @@
+package dev.punchcafe.bazaar.packages.model;
+
+/**
+ * A flattened package row joined with one of its products, so a package and all its product IDs
+ * can be read in a single query. Packages without products produce a single row with a null productId.
+ */
+public record PackageProductRow(Long packageId, long version, String name, String description, String productId) {
+}
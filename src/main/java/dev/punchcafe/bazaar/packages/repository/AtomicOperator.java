@@ -1,39 +1,67 @@
 package dev.punchcafe.bazaar.packages.repository;
 
 import dev.punchcafe.bazaar.packages.model.PackageOrm;
-import dev.punchcafe.bazaar.packages.model.PackageProduct;
 import jakarta.transaction.Transactional;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
 import java.util.List;
 
 @Component
 public class AtomicOperator {
 
+    private static final String UPDATE_PACKAGE = "UPDATE packages SET name = ?, description = ?, version = version + 1 WHERE id = ?";
+
     private final PackageRepository packageRepository;
-    private final PackageProductRepository packageProductRepository;
+    private final PackageProductWriter packageProductWriter;
+    private final JdbcTemplate jdbcTemplate;
 
     public AtomicOperator(
             final PackageRepository packageRepository,
-            final PackageProductRepository packageProductRepository){
+            final PackageProductWriter packageProductWriter,
+            final JdbcTemplate jdbcTemplate){
         this.packageRepository = packageRepository;
-        this.packageProductRepository = packageProductRepository;
+        this.packageProductWriter = packageProductWriter;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Creates a package along with its products.
+     *
+     * @param newEntity the package to create
+     * @param productIds the ids of all products in the package
+     * @return the created package row
+     */
+    @Transactional
+    public PackageOrm createPackageAndProducts(final PackageOrm newEntity, final Collection<String> productIds) {
+        final var created = this.packageRepository.save(newEntity);
+        this.packageProductWriter.insert(created.getId(), productIds);
+        return created;
     }
 
+    /**
+     * Updates a package and applies the given change to its products, in at most three statements
+     * however many products change: one update, one set-based delete and one batched insert.
+     *
+     * @param updatedEntity the new state of the package
+     * @param productIdsToAdd the ids of products to add to the package
+     * @param productIdsToDelete the ids of products to remove from the package
+     */
     @Transactional
-    public PackageOrm updatePackageAndProducts(
+    public void updatePackageAndProducts(
             final PackageOrm updatedEntity,
-            final List<PackageProduct> productsToAdd,
-            final List<PackageProduct> productsToDelete) {
-        final var persistedEntity = this.packageRepository.save(updatedEntity);
-        this.packageProductRepository.deleteAll(productsToDelete);
-        this.packageProductRepository.saveAll(productsToAdd);
-        return persistedEntity;
+            final Collection<String> productIdsToAdd,
+            final Collection<String> productIdsToDelete) {
+        final long packageId = updatedEntity.getId();
+        this.jdbcTemplate.update(UPDATE_PACKAGE, updatedEntity.getName(), updatedEntity.getDescription(), packageId);
+        this.packageProductWriter.delete(packageId, productIdsToDelete);
+        this.packageProductWriter.insert(packageId, productIdsToAdd);
     }
 
     @Transactional
     public void deletePackageAndProducts(final PackageOrm entityToDelete) {
-        this.packageProductRepository.deleteAllById_PackageId(entityToDelete.getId());
+        this.packageProductWriter.deleteAll(List.of(entityToDelete.getId()));
         this.packageRepository.delete(entityToDelete);
         return;
     }
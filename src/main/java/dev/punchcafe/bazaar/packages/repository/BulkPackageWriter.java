@@ -0,0 +1,135 @@
+package dev.punchcafe.bazaar.packages.repository;
+
+import jakarta.transaction.Transactional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes many packages and their products at once using JDBC batches.
+ * The packages' IDENTITY keys stop Hibernate from batching inserts, so this bypasses JPA entirely
+ * while still joining the surrounding JPA transaction.
+ */
+@Component
+public class BulkPackageWriter {
+
+    private static final String INSERT_PACKAGE = "INSERT INTO packages (name, description) VALUES (?, ?)";
+    private static final String UPDATE_PACKAGE = "UPDATE packages SET name = ?, description = ?, version = version + 1 WHERE id = ?";
+    private static final String SELECT_VERSIONS = "SELECT id, version FROM packages WHERE id IN (:packageIds)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final PackageProductWriter packageProductWriter;
+
+    public BulkPackageWriter(final JdbcTemplate jdbcTemplate, final PackageProductWriter packageProductWriter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.packageProductWriter = packageProductWriter;
+    }
+
+    /**
+     * Creates and updates the given packages in a single transaction.
+     * Updated packages have their products replaced with the given product IDs, and their entities'
+     * versions set to the newly written versions. Updates of packages which have been deleted since they
+     * were validated write nothing, and are reported as missing.
+     *
+     * @param creates the packages to create
+     * @param updates the existing packages to update
+     * @return the generated ids of the created packages, and the ids of any packages missing from the updates.
+     */
+    @Transactional
+    public BulkWriteResult writeAll(final List<PackageWrite> creates, final List<PackageWrite> updates) {
+        final var createdIds = insertPackages(creates);
+
+        final var missingIds = new HashSet<Long>();
+        if(!updates.isEmpty()) {
+            this.jdbcTemplate.batchUpdate(UPDATE_PACKAGE, updates, updates.size(), (statement, update) -> {
+                statement.setString(1, update.entity().getName());
+                statement.setString(2, update.entity().getDescription());
+                statement.setLong(3, update.entity().getId());
+            });
+            final var updatedIds = updates.stream().map(update -> update.entity().getId()).toList();
+            this.packageProductWriter.deleteAll(updatedIds);
+            missingIds.addAll(readVersions(updates, updatedIds));
+        }
+
+        final var productIdsByPackageId = new LinkedHashMap<Long, List<String>>();
+        for(int i = 0; i < creates.size(); i++) {
+            productIdsByPackageId.put(createdIds.get(i), creates.get(i).productIds());
+        }
+        for(final var update : updates) {
+            if(!missingIds.contains(update.entity().getId())) {
+                productIdsByPackageId.put(update.entity().getId(), update.productIds());
+            }
+        }
+        this.packageProductWriter.insertAll(productIdsByPackageId);
+        return new BulkWriteResult(createdIds, missingIds);
+    }
+
+    private List<Long> insertPackages(final List<PackageWrite> creates) {
+        if(creates.isEmpty()) {
+            return List.of();
+        }
+        final PreparedStatementCreator insertReturningKeys =
+                connection -> connection.prepareStatement(INSERT_PACKAGE, Statement.RETURN_GENERATED_KEYS);
+        return this.jdbcTemplate.execute(
+                insertReturningKeys,
+                (PreparedStatement statement) -> {
+                    for(final var create : creates) {
+                        statement.setString(1, create.entity().getName());
+                        statement.setString(2, create.entity().getDescription());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+
+                    final var ids = new ArrayList<Long>(creates.size());
+                    try(final var keys = statement.getGeneratedKeys()) {
+                        while(keys.next()) {
+                            ids.add(keys.getLong(1));
+                        }
+                    }
+                    if(ids.size() != creates.size()) {
+                        throw new IllegalStateException(String.format(
+                                "expected %d generated package ids, got %d", creates.size(), ids.size()));
+                    }
+                    return ids;
+                });
+    }
+
+    /**
+     * Reads back the versions just written. Rows updated in this transaction are locked until it commits, so
+     * a package missing here was deleted before its update, which then matched no row. Batch update counts
+     * can't tell us this, as MySQL doesn't report them for rewritten batches.
+     *
+     * @return the ids of updated packages which no longer exist.
+     */
+    private Set<Long> readVersions(final List<PackageWrite> updates, final List<Long> updatedIds) {
+        final var versions = new HashMap<Long, Long>(updatedIds.size() * 2);
+        this.namedParameterJdbcTemplate.query(
+                SELECT_VERSIONS,
+                new MapSqlParameterSource("packageIds", updatedIds),
+                (RowCallbackHandler) row -> versions.put(row.getLong("id"), row.getLong("version")));
+        final var missingIds = new HashSet<Long>();
+        for(final var update : updates) {
+            final var version = versions.get(update.entity().getId());
+            if(version == null) {
+                missingIds.add(update.entity().getId());
+            } else {
+                update.entity().setVersion(version);
+            }
+        }
+        return missingIds;
+    }
+}
@@ -0,0 +1,14 @@
+package dev.punchcafe.bazaar.packages.repository;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The outcome of a bulk write.
+ *
+ * @param createdIds the generated ids of the created packages, in the same order as the creates.
+ * @param missingIds the ids of updated packages which no longer existed, having been deleted since they
+ *                   were validated. Nothing was written for them.
+ */
+public record BulkWriteResult(List<Long> createdIds, Set<Long> missingIds) {
+}
@@ -2,7 +2,10 @@ package dev.punchcafe.bazaar.packages.repository;
 
 import dev.punchcafe.bazaar.packages.model.PackageProduct;
 import dev.punchcafe.bazaar.packages.model.PackageProductId;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -11,4 +14,19 @@ public interface PackageProductRepository extends JpaRepository<PackageProduct,
     List<PackageProduct> findAllById_PackageId(long packageId);
     List<PackageProduct> findAllById_PackageIdIn(List<Long> packageIds);
     void deleteAllById_PackageId(long packageId);
+
+    /**
+     * Keyset page of the ids of packages containing the given product, in id order.
+     * Seeks the product-leading index straight to the page, so every page costs the same however
+     * many packages contain the product.
+     */
+    @Query("""
+            select pp.id.packageId from PackageProduct pp
+            where pp.id.productId = :productId and pp.id.packageId > :lastSeenId
+            order by pp.id.packageId
+            """)
+    List<Long> findPackageIdsContainingProduct(
+            @Param("productId") String productId,
+            @Param("lastSeenId") long lastSeenId,
+            Pageable limit);
 }
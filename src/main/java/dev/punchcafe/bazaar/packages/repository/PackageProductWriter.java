@@ -0,0 +1,180 @@
+package dev.punchcafe.bazaar.packages.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes package membership rows with JDBC, always joining the caller's transaction.
+ * Membership is stored in one of two ways, depending on which migrations have been applied:
+ * by product ID in package_products, or (with the compact-product-keys Liquibase context) by integer
+ * product keys in package_product_keys, dictionary encoded through product_keys. Product keys are
+ * never changed or removed once created, so are cached for the lifetime of the application.
+ */
+@Slf4j
+@Component
+class PackageProductWriter {
+
+    private static final String INSERT_PACKAGE_PRODUCT = "INSERT INTO package_products (package_id, product_id) VALUES (?, ?)";
+    private static final String DELETE_PACKAGE_PRODUCTS = "DELETE FROM package_products WHERE package_id = :packageId AND product_id IN (:productIds)";
+    private static final String DELETE_ALL_PACKAGE_PRODUCTS = "DELETE FROM package_products WHERE package_id IN (:packageIds)";
+
+    private static final String INSERT_PACKAGE_PRODUCT_KEY = "INSERT INTO package_product_keys (package_id, product_key) VALUES (?, ?)";
+    private static final String DELETE_PACKAGE_PRODUCT_KEYS = "DELETE FROM package_product_keys WHERE package_id = :packageId AND product_key IN (:productKeys)";
+    private static final String DELETE_ALL_PACKAGE_PRODUCT_KEYS = "DELETE FROM package_product_keys WHERE package_id IN (:packageIds)";
+
+    private static final String SELECT_PRODUCT_KEYS = "SELECT product_key, product_id FROM product_keys WHERE product_id IN (:productIds)";
+    // A locking read sees keys committed by other writers since this transaction's snapshot was taken.
+    private static final String SELECT_PRODUCT_KEYS_FOR_UPDATE = SELECT_PRODUCT_KEYS + " FOR UPDATE";
+    private static final String INSERT_PRODUCT_KEY = "INSERT INTO product_keys (product_id) VALUES (?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final boolean compactProductKeys;
+    private final Map<String, Integer> productKeys = new ConcurrentHashMap<>();
+
+    PackageProductWriter(final JdbcTemplate jdbcTemplate) throws MetaDataAccessException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.compactProductKeys = hasTable(jdbcTemplate, "product_keys");
+        log.info(String.format("storing package products by %s", this.compactProductKeys ? "product key" : "product ID"));
+    }
+
+    /**
+     * Adds the given products to a package.
+     */
+    void insert(final long packageId, final Collection<String> productIds) {
+        insertAll(Map.of(packageId, productIds));
+    }
+
+    /**
+     * Adds the given products to each package, in a single batch.
+     *
+     * @param productIdsByPackageId the product IDs to add, keyed by the package to add them to
+     */
+    void insertAll(final Map<Long, ? extends Collection<String>> productIdsByPackageId) {
+        final var allProductIds = new HashSet<String>();
+        productIdsByPackageId.values().forEach(allProductIds::addAll);
+        if(allProductIds.isEmpty()) {
+            return;
+        }
+        final var keys = this.compactProductKeys ? productKeysFor(allProductIds) : null;
+        final var rows = new ArrayList<Object[]>();
+        productIdsByPackageId.forEach((packageId, productIds) -> {
+            for(final var productId : productIds) {
+                rows.add(new Object[]{packageId, keys == null ? productId : keys.get(productId)});
+            }
+        });
+        this.jdbcTemplate.batchUpdate(this.compactProductKeys ? INSERT_PACKAGE_PRODUCT_KEY : INSERT_PACKAGE_PRODUCT, rows);
+    }
+
+    /**
+     * Removes the given products from a package.
+     */
+    void delete(final long packageId, final Collection<String> productIds) {
+        if(productIds.isEmpty()) {
+            return;
+        }
+        final var parameters = new MapSqlParameterSource("packageId", packageId);
+        if(this.compactProductKeys) {
+            this.namedParameterJdbcTemplate.update(
+                    DELETE_PACKAGE_PRODUCT_KEYS,
+                    parameters.addValue("productKeys", productKeysFor(productIds).values()));
+        } else {
+            this.namedParameterJdbcTemplate.update(DELETE_PACKAGE_PRODUCTS, parameters.addValue("productIds", productIds));
+        }
+    }
+
+    /**
+     * Removes every product from the given packages.
+     */
+    void deleteAll(final Collection<Long> packageIds) {
+        if(packageIds.isEmpty()) {
+            return;
+        }
+        this.namedParameterJdbcTemplate.update(
+                this.compactProductKeys ? DELETE_ALL_PACKAGE_PRODUCT_KEYS : DELETE_ALL_PACKAGE_PRODUCTS,
+                new MapSqlParameterSource("packageIds", packageIds));
+    }
+
+    private Map<String, Integer> productKeysFor(final Collection<String> productIds) {
+        final var keys = new HashMap<String, Integer>(productIds.size() * 2);
+        final var uncached = new ArrayList<String>();
+        for(final var productId : productIds) {
+            final var key = this.productKeys.get(productId);
+            if(key == null) {
+                uncached.add(productId);
+            } else {
+                keys.put(productId, key);
+            }
+        }
+        if(uncached.isEmpty()) {
+            return keys;
+        }
+
+        final var resolved = selectProductKeys(SELECT_PRODUCT_KEYS, uncached);
+        final var missing = uncached.stream().filter(productId -> !resolved.containsKey(productId)).toList();
+        if(!missing.isEmpty()) {
+            for(final var productId : missing) {
+                try {
+                    this.jdbcTemplate.update(INSERT_PRODUCT_KEY, productId);
+                } catch (DuplicateKeyException e) {
+                    // Created concurrently by another writer; read back below.
+                }
+            }
+            resolved.putAll(selectProductKeys(SELECT_PRODUCT_KEYS_FOR_UPDATE, missing));
+        }
+        keys.putAll(resolved);
+
+        // Only cache keys once they're known to be committed, in case this transaction created them and rolls back.
+        if(TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    PackageProductWriter.this.productKeys.putAll(resolved);
+                }
+            });
+        } else {
+            this.productKeys.putAll(resolved);
+        }
+        return keys;
+    }
+
+    private Map<String, Integer> selectProductKeys(final String query, final Collection<String> productIds) {
+        final var keys = new HashMap<String, Integer>(productIds.size() * 2);
+        this.namedParameterJdbcTemplate.query(
+                query,
+                new MapSqlParameterSource("productIds", productIds),
+                (RowCallbackHandler) row -> keys.put(row.getString("product_id"), row.getInt("product_key")));
+        return keys;
+    }
+
+    private static boolean hasTable(final JdbcTemplate jdbcTemplate, final String tableName) throws MetaDataAccessException {
+        return JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(), (DatabaseMetaData metaData) -> {
+            try(final var tables = metaData.getTables(metaData.getConnection().getCatalog(), null, "%", new String[]{"TABLE"})) {
+                while(tables.next()) {
+                    if(tableName.equalsIgnoreCase(tables.getString("TABLE_NAME"))) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        });
+    }
+}
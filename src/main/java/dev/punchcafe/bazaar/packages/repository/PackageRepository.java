@@ -1,12 +1,55 @@
 package dev.punchcafe.bazaar.packages.repository;
 
 import dev.punchcafe.bazaar.packages.model.PackageOrm;
+import dev.punchcafe.bazaar.packages.model.PackageProductRow;
 import jakarta.annotation.Nonnull;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface PackageRepository extends JpaRepository<PackageOrm, Long> {
     @Override
     Page<PackageOrm> findAll(@Nonnull Pageable request);
+
+    /**
+     * Keyset page of packages: seeks past the last seen id rather than scanning an offset,
+     * and (returning a List rather than a Page) never issues a count query.
+     */
+    List<PackageOrm> findAllByIdGreaterThanOrderByIdAsc(long lastSeenId, Pageable limit);
+
+    /**
+     * Reads a package together with all of its product IDs in one round trip.
+     * Returns no rows if the package doesn't exist.
+     */
+    @Query("""
+            select new dev.punchcafe.bazaar.packages.model.PackageProductRow(p.id, p.version, p.name, p.description, pp.id.productId)
+            from PackageOrm p left join PackageProduct pp on pp.id.packageId = p.id
+            where p.id = :id
+            """)
+    List<PackageProductRow> findWithProductsById(@Param("id") long id);
+
+    /**
+     * Streams every package joined with its product IDs, ordered by package id so each package's
+     * rows are adjacent. Rows are fetched from a server-side cursor in batches rather than being
+     * loaded up front, so the stream must be consumed, and closed, within a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            select new dev.punchcafe.bazaar.packages.model.PackageProductRow(p.id, p.version, p.name, p.description, pp.id.productId)
+            from PackageOrm p left join PackageProduct pp on pp.id.packageId = p.id
+            order by p.id
+            """)
+    Stream<PackageProductRow> streamAllWithProducts();
+
+    @Query("select p.id from PackageOrm p where p.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
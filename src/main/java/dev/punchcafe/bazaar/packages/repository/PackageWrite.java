@@ -0,0 +1,14 @@
+package dev.punchcafe.bazaar.packages.repository;
+
+import dev.punchcafe.bazaar.packages.model.PackageOrm;
+
+import java.util.List;
+
+/**
+ * A package row to be written along with the complete set of products it should contain.
+ *
+ * @param entity the package row. The id is ignored for creates.
+ * @param productIds the ids of all products in the package once written.
+ */
+public record PackageWrite(PackageOrm entity, List<String> productIds) {
+}
@@ -1,30 +1,53 @@
 package dev.punchcafe.bazaar.products;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.punchcafe.bazaar.config.ProductsApiConfiguration;
-import io.micrometer.core.annotation.Timed;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import dev.punchcafe.bazaar.gateway.CacheValidators;
+import dev.punchcafe.bazaar.gateway.ConditionalResponse;
+import dev.punchcafe.bazaar.gateway.UpstreamClient;
+import dev.punchcafe.bazaar.gateway.UpstreamClients;
 
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
-import java.util.Arrays;
-import java.util.List;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Component
 public class ApiServiceClient {
-    private final RestTemplate restTemplate;
+    private final UpstreamClient upstream;
+    private final URI productsUri;
+    private final ProductCatalogReader catalogReader;
+    private final Map<String, String> headers;
 
-    public ApiServiceClient(RestTemplateBuilder builder, ProductsApiConfiguration configuration) {
-        this.restTemplate = builder.basicAuthentication(configuration.getUsername(), configuration.getPassword()).build();
+    public ApiServiceClient(UpstreamClients upstreamClients, ObjectMapper objectMapper, ProductsApiConfiguration configuration) {
+        this.upstream = upstreamClients.forUpstream("products_api");
+        this.productsUri = configuration.getProductsUrl();
+        this.catalogReader = new ProductCatalogReader(objectMapper.getFactory(), configuration.getCatalogLayout());
+        final var credentials = configuration.getUsername() + ":" + configuration.getPassword();
+        this.headers = Map.of(
+                "Authorization",
+                "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
     }
 
-    @Timed("fetch_all_products")
-    public List<Product> getAllProducts() {
-        // TODO: extract to config
-        final var entities = restTemplate.getForEntity(
-                "https://product-service.herokuapp.com/api/v1/products",
-                Product[].class
-        );
-        return Arrays.asList(entities.getBody());
+    /**
+     * Fetches every product into the snapshot following the current one, unless the catalog hasn't
+     * changed since the given validators were returned. The response is parsed as it streams in.
+     *
+     * @param validators the validators returned with the current catalog
+     * @param current the current snapshot, or null if there isn't one
+     * @return the next snapshot (or the current one, if no product changed) if the catalog has been modified.
+     */
+    public CompletableFuture<ConditionalResponse<ProductCatalog>> fetchCatalog(
+            final CacheValidators validators,
+            final ProductCatalog current) {
+        return this.upstream.getIfModified(
+                this.productsUri,
+                this.headers,
+                validators,
+                body -> this.catalogReader.read(body, current, Instant.now()));
     }
 }
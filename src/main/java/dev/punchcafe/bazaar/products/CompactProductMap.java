@@ -0,0 +1,348 @@
+package dev.punchcafe.bazaar.products;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * A read-only map of products which stores them as primitives rather than as objects, for catalogs
+ * too large to hold as a HashMap of records.
+ * Product IDs of 12 alphanumeric characters take 6 bits per character, and are packed into a long
+ * (the first 10 characters) and a short (the last 2). They're indexed in an open-addressing table
+ * pointing into dense arrays of prices and name offsets, with every name's UTF-8 bytes in one shared
+ * arena. Products with any other kind of ID are kept in an ordinary map alongside.
+ * Products are only materialized as {@link Product} records when read.
+ */
+final class CompactProductMap extends AbstractMap<String, Product> {
+
+    private static final int ID_LENGTH = 12;
+    private static final String ID_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    private static final byte[] ID_CODES = new byte[128];
+
+    static {
+        Arrays.fill(ID_CODES, (byte) -1);
+        for(int i = 0; i < ID_ALPHABET.length(); i++) {
+            ID_CODES[ID_ALPHABET.charAt(i)] = (byte) i;
+        }
+    }
+
+    // Dense, indexed by ordinal.
+    private final long[] idHighs;
+    private final short[] idLows;
+    private final int[] usdPrices;
+    private final int[] nameOffsets;
+    private final byte[] names;
+    private final BitSet nullNames;
+
+    // Open-addressing index of ordinal + 1, with 0 marking an empty slot.
+    private final int[] slots;
+    private final Map<String, Product> overflow;
+    private final int size;
+
+    private CompactProductMap(final Builder builder) {
+        this.idHighs = Arrays.copyOf(builder.idHighs, builder.count);
+        this.idLows = Arrays.copyOf(builder.idLows, builder.count);
+        this.usdPrices = Arrays.copyOf(builder.usdPrices, builder.count);
+        this.nameOffsets = Arrays.copyOf(builder.nameOffsets, builder.count + 1);
+        this.names = Arrays.copyOf(builder.names, builder.nameOffsets[builder.count]);
+        this.nullNames = builder.nullNames;
+        this.overflow = builder.overflow;
+
+        this.slots = new int[tableSize(builder.count)];
+        int unique = 0;
+        for(int ordinal = 0; ordinal < builder.count; ordinal++) {
+            final int slot = slotOf(this.idHighs[ordinal], this.idLows[ordinal]);
+            if(this.slots[slot] == 0) {
+                unique++;
+            }
+            // A later duplicate replaces the earlier product, as it would in a HashMap.
+            this.slots[slot] = ordinal + 1;
+        }
+        this.size = unique + this.overflow.size();
+    }
+
+    static Builder builder(final int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return key instanceof String id && (ordinalOf(id) >= 0 || this.overflow.containsKey(id));
+    }
+
+    @Override
+    public Product get(final Object key) {
+        if(!(key instanceof String id)) {
+            return null;
+        }
+        final int ordinal = ordinalOf(id);
+        return ordinal >= 0 ? new Product(id, name(ordinal), this.usdPrices[ordinal]) : this.overflow.get(id);
+    }
+
+    /**
+     * Reads a product's price without materializing the product.
+     *
+     * @return the product's USD price, or null if it isn't in the map.
+     */
+    Integer usdPrice(final String id) {
+        final int ordinal = ordinalOf(id);
+        if(ordinal >= 0) {
+            return this.usdPrices[ordinal];
+        }
+        final var product = this.overflow.get(id);
+        return product == null ? null : product.usdPrice();
+    }
+
+    /**
+     * @return whether the map holds exactly the given product, without materializing it.
+     */
+    boolean containsProduct(final String id, final String name, final int usdPrice) {
+        final int ordinal = ordinalOf(id);
+        if(ordinal < 0) {
+            final var product = this.overflow.get(id);
+            return product != null && product.usdPrice() == usdPrice && Objects.equals(product.name(), name);
+        }
+        return this.usdPrices[ordinal] == usdPrice && nameEquals(ordinal, name);
+    }
+
+    @Override
+    public void forEach(final BiConsumer<? super String, ? super Product> action) {
+        for(final int slot : this.slots) {
+            if(slot != 0) {
+                final var product = product(slot - 1);
+                action.accept(product.id(), product);
+            }
+        }
+        this.overflow.forEach(action);
+    }
+
+    @Override
+    public Set<Entry<String, Product>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Product>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return CompactProductMap.this.size;
+            }
+        };
+    }
+
+    private Product product(final int ordinal) {
+        return new Product(decodeId(this.idHighs[ordinal], this.idLows[ordinal]), name(ordinal), this.usdPrices[ordinal]);
+    }
+
+    private String name(final int ordinal) {
+        if(this.nullNames.get(ordinal)) {
+            return null;
+        }
+        final int offset = this.nameOffsets[ordinal];
+        return new String(this.names, offset, this.nameOffsets[ordinal + 1] - offset, StandardCharsets.UTF_8);
+    }
+
+    private boolean nameEquals(final int ordinal, final String name) {
+        if(this.nullNames.get(ordinal) || name == null) {
+            return this.nullNames.get(ordinal) && name == null;
+        }
+        final int offset = this.nameOffsets[ordinal];
+        final int length = this.nameOffsets[ordinal + 1] - offset;
+        // Compare ASCII names in place, only decoding anything else.
+        if(length != name.length()) {
+            return name(ordinal).equals(name);
+        }
+        for(int i = 0; i < length; i++) {
+            final byte stored = this.names[offset + i];
+            if(stored < 0) {
+                return name(ordinal).equals(name);
+            }
+            if(stored != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int ordinalOf(final String id) {
+        final long high = encodeHigh(id);
+        if(high < 0) {
+            return -1;
+        }
+        final short low = encodeLow(id);
+        final int mask = this.slots.length - 1;
+        for(int slot = hash(high, low) & mask; this.slots[slot] != 0; slot = (slot + 1) & mask) {
+            final int ordinal = this.slots[slot] - 1;
+            if(this.idHighs[ordinal] == high && this.idLows[ordinal] == low) {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+
+    private int slotOf(final long high, final short low) {
+        final int mask = this.slots.length - 1;
+        int slot = hash(high, low) & mask;
+        while(this.slots[slot] != 0) {
+            final int ordinal = this.slots[slot] - 1;
+            if(this.idHighs[ordinal] == high && this.idLows[ordinal] == low) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * @return a power of two table size, keeping the load factor at or below a half.
+     */
+    private static int tableSize(final int count) {
+        return Math.max(2, Integer.highestOneBit(Math.max(1, count) * 2 - 1) << 1);
+    }
+
+    private static int hash(final long high, final short low) {
+        long hash = (high ^ ((long) low << 50)) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * @return the first 10 characters of the ID packed into 60 bits, or -1 if the ID can't be encoded.
+     */
+    private static long encodeHigh(final String id) {
+        if(id.length() != ID_LENGTH) {
+            return -1;
+        }
+        long high = 0;
+        for(int i = 0; i < ID_LENGTH; i++) {
+            final char c = id.charAt(i);
+            if(c >= ID_CODES.length || ID_CODES[c] < 0) {
+                return -1;
+            }
+            if(i < ID_LENGTH - 2) {
+                high = (high << 6) | ID_CODES[c];
+            }
+        }
+        return high;
+    }
+
+    private static short encodeLow(final String id) {
+        return (short) ((ID_CODES[id.charAt(ID_LENGTH - 2)] << 6) | ID_CODES[id.charAt(ID_LENGTH - 1)]);
+    }
+
+    private static String decodeId(final long high, final short low) {
+        final var chars = new char[ID_LENGTH];
+        chars[ID_LENGTH - 1] = ID_ALPHABET.charAt(low & 0x3F);
+        chars[ID_LENGTH - 2] = ID_ALPHABET.charAt((low >>> 6) & 0x3F);
+        long remaining = high;
+        for(int i = ID_LENGTH - 3; i >= 0; i--) {
+            chars[i] = ID_ALPHABET.charAt((int) (remaining & 0x3F));
+            remaining >>>= 6;
+        }
+        return new String(chars);
+    }
+
+    private final class EntryIterator implements Iterator<Entry<String, Product>> {
+        private int slot = nextOccupied(0);
+        private final Iterator<Entry<String, Product>> overflowEntries = overflow.entrySet().iterator();
+
+        @Override
+        public boolean hasNext() {
+            return this.slot < slots.length || this.overflowEntries.hasNext();
+        }
+
+        @Override
+        public Entry<String, Product> next() {
+            if(this.slot < slots.length) {
+                final var product = product(slots[this.slot] - 1);
+                this.slot = nextOccupied(this.slot + 1);
+                return Map.entry(product.id(), product);
+            }
+            if(!this.overflowEntries.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return this.overflowEntries.next();
+        }
+
+        private int nextOccupied(int from) {
+            while(from < slots.length && slots[from] == 0) {
+                from++;
+            }
+            return from;
+        }
+    }
+
+    static final class Builder {
+        private long[] idHighs;
+        private short[] idLows;
+        private int[] usdPrices;
+        private int[] nameOffsets;
+        private byte[] names;
+        private final BitSet nullNames = new BitSet();
+        private final Map<String, Product> overflow = new HashMap<>();
+        private int count;
+
+        private Builder(final int expectedSize) {
+            final int capacity = Math.max(16, expectedSize);
+            this.idHighs = new long[capacity];
+            this.idLows = new short[capacity];
+            this.usdPrices = new int[capacity];
+            this.nameOffsets = new int[capacity + 1];
+            this.names = new byte[capacity * 16];
+        }
+
+        Builder add(final String id, final String name, final int usdPrice) {
+            final long high = encodeHigh(id);
+            if(high < 0) {
+                this.overflow.put(id, new Product(id, name, usdPrice));
+                return this;
+            }
+            if(this.count == this.idHighs.length) {
+                grow();
+            }
+            this.idHighs[this.count] = high;
+            this.idLows[this.count] = encodeLow(id);
+            this.usdPrices[this.count] = usdPrice;
+            final int offset = this.nameOffsets[this.count];
+            if(name == null) {
+                this.nullNames.set(this.count);
+                this.nameOffsets[this.count + 1] = offset;
+            } else {
+                final var nameBytes = name.getBytes(StandardCharsets.UTF_8);
+                if(offset + nameBytes.length > this.names.length) {
+                    this.names = Arrays.copyOf(this.names, Math.max(this.names.length * 2, offset + nameBytes.length));
+                }
+                System.arraycopy(nameBytes, 0, this.names, offset, nameBytes.length);
+                this.nameOffsets[this.count + 1] = offset + nameBytes.length;
+            }
+            this.count++;
+            return this;
+        }
+
+        CompactProductMap build() {
+            return new CompactProductMap(this);
+        }
+
+        private void grow() {
+            final int capacity = this.idHighs.length * 2;
+            this.idHighs = Arrays.copyOf(this.idHighs, capacity);
+            this.idLows = Arrays.copyOf(this.idLows, capacity);
+            this.usdPrices = Arrays.copyOf(this.usdPrices, capacity);
+            this.nameOffsets = Arrays.copyOf(this.nameOffsets, capacity + 1);
+        }
+    }
+}
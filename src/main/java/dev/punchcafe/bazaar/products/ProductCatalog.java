@@ -0,0 +1,252 @@
+package dev.punchcafe.bazaar.products;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * An immutable, point-in-time snapshot of the upstream product catalog.
+ * Snapshots are never modified once published, so a reader can hold on to one for the whole
+ * of a request without coordinating with background refreshes.
+ *
+ * @param products all known products, keyed by product ID. The snapshot takes ownership of the map,
+ *                 which mustn't be modified afterwards.
+ * @param version monotonically increasing version, incremented each time a new snapshot is published
+ * @param loadedAt when the snapshot was fetched from the upstream
+ * @param contentHash a hash of every product's ID, name and price. Unlike the version, which counts the
+ *                    snapshots published by this instance, it identifies the same catalog content across
+ *                    restarts and instances.
+ */
+public record ProductCatalog(Map<String, Product> products, long version, Instant loadedAt, long contentHash) {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    public ProductCatalog {
+        // Wrapped rather than copied, so a large catalog is never held twice while it's loaded.
+        if(!(products instanceof CompactProductMap)) {
+            products = Collections.unmodifiableMap(products);
+        }
+    }
+
+    /**
+     * Hashes the given products' content into the snapshot's content hash.
+     */
+    public ProductCatalog(final Map<String, Product> products, final long version, final Instant loadedAt) {
+        this(products, version, loadedAt, contentHash(products));
+    }
+
+    public static ProductCatalog of(final Map<String, Product> products) {
+        return new ProductCatalog(new HashMap<>(products), 0, Instant.now());
+    }
+
+    /**
+     * @param previous the snapshot the new one will replace, or null if there isn't one.
+     * @return a builder for the snapshot following the given one, in the same layout.
+     */
+    public static ProductCatalogBuilder builder(final ProductCatalog previous) {
+        return builder(previous, previous == null ? ProductCatalogLayout.HASH_MAP : previous.layout());
+    }
+
+    /**
+     * @param previous the snapshot the new one will replace, or null if there isn't one.
+     * @param layout how the new snapshot should hold its products
+     * @return a builder for the snapshot following the given one.
+     */
+    public static ProductCatalogBuilder builder(final ProductCatalog previous, final ProductCatalogLayout layout) {
+        return new ProductCatalogBuilder(previous, layout);
+    }
+
+    public static ProductCatalog of(final Collection<Product> products, final long version, final Instant loadedAt) {
+        final var productsById = new HashMap<String, Product>(products.size() * 2);
+        for(final var product : products) {
+            productsById.put(product.id(), product);
+        }
+        return new ProductCatalog(productsById, version, loadedAt);
+    }
+
+    /**
+     * Builds the snapshot to follow this one from a full fetch of the upstream catalog.
+     * Products which haven't changed keep their existing instances, so an unchanged catalog costs
+     * no new products.
+     *
+     * @param fetched every product in the upstream catalog
+     * @param loadedAt when the products were fetched
+     * @return the next version of the catalog, or this snapshot if no product has changed.
+     */
+    public ProductCatalog next(final Collection<Product> fetched, final Instant loadedAt) {
+        final var builder = builder(this);
+        for(final var product : fetched) {
+            builder.product(product.id(), product.name(), product.usdPrice());
+        }
+        return builder.build(loadedAt);
+    }
+
+    /**
+     * Look up a given product by its ID.
+     *
+     * @param productId the product ID
+     * @return the product, if it exists in this snapshot.
+     */
+    public Optional<Product> lookup(final String productId) {
+        return Optional.ofNullable(this.products.get(productId));
+    }
+
+    /**
+     * Resolves all the given product IDs against this snapshot in a single pass.
+     *
+     * @param productIds the product IDs to resolve. May contain nulls, which are reported as missing.
+     * @return the found products along with the IDs which couldn't be found.
+     */
+    public ProductLookup lookupAll(final Collection<String> productIds) {
+        final var found = new HashMap<String, Product>(productIds.size() * 2);
+        final var missing = new HashSet<String>();
+        for(final var productId : productIds) {
+            final var product = productId == null ? null : this.products.get(productId);
+            if(product == null) {
+                missing.add(productId);
+            } else {
+                found.put(productId, product);
+            }
+        }
+        return new ProductLookup(found, missing);
+    }
+
+    /**
+     * Checks all the given product IDs against this snapshot, without materializing any products.
+     * Prefer this over {@link #lookupAll(Collection)} when only the outcome is needed.
+     *
+     * @param productIds the product IDs to check. May contain nulls, which are never contained.
+     * @return whether every product exists in this snapshot.
+     */
+    public boolean containsAll(final Collection<String> productIds) {
+        for(final var productId : productIds) {
+            if(productId == null || !this.products.containsKey(productId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Look up a product's USD price by its ID, without materializing the product in a compact snapshot.
+     *
+     * @param productId the product ID
+     * @return the product's USD price, or null if it doesn't exist in this snapshot.
+     */
+    public Integer usdPrice(final String productId) {
+        if(this.products instanceof CompactProductMap compact) {
+            return compact.usdPrice(productId);
+        }
+        final var product = this.products.get(productId);
+        return product == null ? null : product.usdPrice();
+    }
+
+    public int size() {
+        return this.products.size();
+    }
+
+    public ProductCatalogLayout layout() {
+        return this.products instanceof CompactProductMap ? ProductCatalogLayout.COMPACT : ProductCatalogLayout.HASH_MAP;
+    }
+
+    private static long contentHash(final Map<String, Product> products) {
+        // Summed, so the hash doesn't depend on the order the map holds its products in.
+        final long[] sum = {0};
+        products.forEach((id, product) -> {
+            long hash = hash(FNV_OFFSET_BASIS, id);
+            hash = hash(hash, product.name());
+            hash = (hash ^ product.usdPrice()) * FNV_PRIME;
+            sum[0] += mix(hash);
+        });
+        return sum[0];
+    }
+
+    private static long hash(long hash, final String value) {
+        if(value == null) {
+            return (hash ^ 0xff) * FNV_PRIME;
+        }
+        for(int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        // Separates one string from the next, so moving characters between them changes the hash.
+        return (hash ^ 0xfe) * FNV_PRIME;
+    }
+
+    private static long mix(long hash) {
+        // SplitMix64's finalizer, so sums of similar products' hashes don't collide.
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    /**
+     * Builds a snapshot one product at a time, reusing the previous snapshot's instances of any
+     * products which haven't changed.
+     */
+    public static final class ProductCatalogBuilder {
+        private final ProductCatalog previous;
+        private final Map<String, Product> products;
+        private final CompactProductMap.Builder compactProducts;
+        private boolean changed;
+
+        private ProductCatalogBuilder(final ProductCatalog previous, final ProductCatalogLayout layout) {
+            this.previous = previous;
+            final int expectedSize = previous == null ? 16 : previous.size();
+            if(layout == ProductCatalogLayout.COMPACT) {
+                this.products = null;
+                this.compactProducts = CompactProductMap.builder(expectedSize);
+            } else {
+                this.products = new HashMap<>(expectedSize * 2);
+                this.compactProducts = null;
+            }
+        }
+
+        public ProductCatalogBuilder product(final String id, final String name, final int usdPrice) {
+            if(this.compactProducts != null) {
+                this.compactProducts.add(id, name, usdPrice);
+                this.changed |= !previouslyContained(id, name, usdPrice);
+                return this;
+            }
+            final var existing = this.previous == null ? null : this.previous.products.get(id);
+            if(existing != null && existing.usdPrice() == usdPrice && Objects.equals(existing.name(), name)) {
+                this.products.put(id, existing);
+            } else {
+                this.products.put(id, new Product(id, name, usdPrice));
+                this.changed = true;
+            }
+            return this;
+        }
+
+        private boolean previouslyContained(final String id, final String name, final int usdPrice) {
+            if(this.previous == null) {
+                return false;
+            }
+            if(this.previous.products instanceof CompactProductMap compact) {
+                return compact.containsProduct(id, name, usdPrice);
+            }
+            final var existing = this.previous.products.get(id);
+            return existing != null && existing.usdPrice() == usdPrice && Objects.equals(existing.name(), name);
+        }
+
+        /**
+         * @param loadedAt when the products were fetched
+         * @return the next version of the catalog, or the previous snapshot if no product has changed.
+         */
+        public ProductCatalog build(final Instant loadedAt) {
+            final Map<String, Product> built = this.compactProducts != null ? this.compactProducts.build() : this.products;
+            if(this.previous == null) {
+                return new ProductCatalog(built, 1, loadedAt);
+            }
+            if(!this.changed && built.size() == this.previous.size()) {
+                return this.previous;
+            }
+            return new ProductCatalog(built, this.previous.version + 1, loadedAt);
+        }
+    }
+}
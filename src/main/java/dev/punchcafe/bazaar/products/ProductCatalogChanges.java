@@ -0,0 +1,55 @@
+package dev.punchcafe.bazaar.products;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The products which differ between two catalog snapshots.
+ * Products whose only change is to their name aren't included.
+ *
+ * @param added the IDs of products which only exist in the newer snapshot
+ * @param removed the IDs of products which only exist in the older snapshot
+ * @param repriced the IDs of products whose USD price has changed
+ */
+public record ProductCatalogChanges(Set<String> added, Set<String> removed, Set<String> repriced) {
+
+    public ProductCatalogChanges {
+        added = Set.copyOf(added);
+        removed = Set.copyOf(removed);
+        repriced = Set.copyOf(repriced);
+    }
+
+    public static ProductCatalogChanges between(final ProductCatalog previous, final ProductCatalog current) {
+        final var added = new HashSet<String>();
+        final var removed = new HashSet<String>();
+        final var repriced = new HashSet<String>();
+        current.products().forEach((productId, product) -> {
+            final var previousProduct = previous.products().get(productId);
+            if(previousProduct == null) {
+                added.add(productId);
+            } else if(previousProduct != product && previousProduct.usdPrice() != product.usdPrice()) {
+                repriced.add(productId);
+            }
+        });
+        for(final var productId : previous.products().keySet()) {
+            if(!current.products().containsKey(productId)) {
+                removed.add(productId);
+            }
+        }
+        return new ProductCatalogChanges(added, removed, repriced);
+    }
+
+    /**
+     * @return the IDs of all added, removed or repriced products.
+     */
+    public Set<String> productIds() {
+        final var productIds = new HashSet<String>(this.added);
+        productIds.addAll(this.removed);
+        productIds.addAll(this.repriced);
+        return productIds;
+    }
+
+    public boolean isEmpty() {
+        return this.added.isEmpty() && this.removed.isEmpty() && this.repriced.isEmpty();
+    }
+}
@@ -0,0 +1,16 @@
+package dev.punchcafe.bazaar.products;
+
+/**
+ * How a catalog snapshot holds its products in memory.
+ */
+public enum ProductCatalogLayout {
+    /**
+     * A HashMap of product records. Unchanged products keep their instances across refreshes.
+     */
+    HASH_MAP,
+    /**
+     * Products packed into primitive arrays, at a fraction of the footprint. Products are materialized
+     * on each lookup, so suits catalogs too large to comfortably hold as records.
+     */
+    COMPACT
+}
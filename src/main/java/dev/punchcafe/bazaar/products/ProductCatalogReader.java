@@ -0,0 +1,70 @@
+package dev.punchcafe.bazaar.products;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+
+/**
+ * Reads the products API's JSON array of products token by token, adding each product straight into
+ * the next catalog snapshot as it's parsed. Only one product is ever held outside of the snapshot, and
+ * unchanged products reuse their previous instances.
+ */
+final class ProductCatalogReader {
+
+    private final JsonFactory jsonFactory;
+    private final ProductCatalogLayout layout;
+
+    ProductCatalogReader(final JsonFactory jsonFactory, final ProductCatalogLayout layout) {
+        this.jsonFactory = jsonFactory;
+        this.layout = layout;
+    }
+
+    /**
+     * @param body the products API response body. Isn't closed.
+     * @param previous the current snapshot, or null if there isn't one.
+     * @param loadedAt when the body was fetched
+     * @return the next catalog snapshot, or the previous snapshot if no product has changed.
+     */
+    ProductCatalog read(final InputStream body, final ProductCatalog previous, final Instant loadedAt) throws IOException {
+        try(final var parser = this.jsonFactory.createParser(body)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            if(parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "expected an array of products");
+            }
+            final var builder = ProductCatalog.builder(previous, this.layout);
+            JsonToken token;
+            while((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                readProduct(parser, builder);
+            }
+            if(token != JsonToken.END_ARRAY) {
+                throw new JsonParseException(parser, "expected a product object");
+            }
+            return builder.build(loadedAt);
+        }
+    }
+
+    private static void readProduct(final JsonParser parser, final ProductCatalog.ProductCatalogBuilder builder) throws IOException {
+        String id = null;
+        String name = null;
+        int usdPrice = 0;
+        while(parser.nextToken() == JsonToken.FIELD_NAME) {
+            final var field = parser.currentName();
+            parser.nextToken();
+            switch(field) {
+                case "id" -> id = parser.getValueAsString();
+                case "name" -> name = parser.getValueAsString();
+                case "usdPrice" -> usdPrice = parser.getValueAsInt();
+                default -> parser.skipChildren();
+            }
+        }
+        if(id == null) {
+            throw new JsonParseException(parser, "product is missing an id");
+        }
+        builder.product(id, name, usdPrice);
+    }
+}
@@ -0,0 +1,11 @@
+package dev.punchcafe.bazaar.products;
+
+/**
+ * Published whenever a new product catalog snapshot replaces an existing one.
+ *
+ * @param previous the snapshot which has been replaced
+ * @param current the newly published snapshot
+ * @param changes the products added, removed or repriced by the new snapshot
+ */
+public record ProductCatalogRefreshedEvent(ProductCatalog previous, ProductCatalog current, ProductCatalogChanges changes) {
+}
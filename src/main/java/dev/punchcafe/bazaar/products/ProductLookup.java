@@ -0,0 +1,22 @@
+package dev.punchcafe.bazaar.products;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The result of resolving a batch of product IDs against a single catalog snapshot.
+ *
+ * @param found the resolved products, keyed by product ID
+ * @param missing the requested IDs which aren't in the catalog (including any null IDs)
+ */
+public record ProductLookup(Map<String, Product> found, Set<String> missing) {
+
+    public Optional<Product> get(final String productId) {
+        return Optional.ofNullable(this.found.get(productId));
+    }
+
+    public boolean allFound() {
+        return this.missing.isEmpty();
+    }
+}
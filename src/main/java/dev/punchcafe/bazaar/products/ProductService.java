@@ -2,6 +2,7 @@ package dev.punchcafe.bazaar.products;
 
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
 import java.util.Optional;
 
 /**
@@ -15,6 +16,16 @@ public class ProductService {
         this.productsCache = cache;
     }
 
+    /**
+     * Returns the current catalog snapshot, for callers which need to make several
+     * consistent reads against the same version of the catalog.
+     *
+     * @return the current catalog snapshot
+     */
+    public ProductCatalog catalog() {
+        return this.productsCache.getSnapshot();
+    }
+
     /**
      * Look up a given product by its ID.
      * If no product exists, returns empty.
@@ -23,6 +34,28 @@ public class ProductService {
      * @return the product, if it exists.
      */
     public Optional<Product> lookup(final String productId) {
-        return Optional.ofNullable(this.productsCache.getCache().get(productId));
+        return this.productsCache.getSnapshot().lookup(productId);
+    }
+
+    /**
+     * Look up all the given products against the same catalog snapshot.
+     * Use this over repeated calls to {@link #lookup(String)} when resolving a whole package, or page of packages.
+     *
+     * @param productIds the product IDs
+     * @return the found products, and the IDs which don't exist.
+     */
+    public ProductLookup lookupAll(final Collection<String> productIds) {
+        return this.productsCache.getSnapshot().lookupAll(productIds);
+    }
+
+    /**
+     * Checks all the given products exist in the same catalog snapshot.
+     * Use this over repeated calls to {@link #lookup(String)} when validating a whole package.
+     *
+     * @param productIds the product IDs. May contain nulls, which never exist.
+     * @return whether every product exists.
+     */
+    public boolean containsAll(final Collection<String> productIds) {
+        return this.productsCache.getSnapshot().containsAll(productIds);
     }
 }
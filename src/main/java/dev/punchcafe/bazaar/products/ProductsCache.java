@@ -1,32 +1,159 @@
 package dev.punchcafe.bazaar.products;
 
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import dev.punchcafe.bazaar.config.GatewayConfig;
+import dev.punchcafe.bazaar.gateway.CacheValidators;
+import dev.punchcafe.bazaar.gateway.ConditionalResponse;
+import dev.punchcafe.bazaar.gateway.SingleFlight;
+import dev.punchcafe.bazaar.gateway.UpstreamException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Holds the in-memory snapshot of the product catalog.
+ * The snapshot is rebuilt in the background on a fixed interval and swapped in atomically, so readers
+ * never wait on a refresh. Only the very first read, before any snapshot has been published, blocks
+ * on the upstream. Concurrent refreshes share a single upstream request.
+ * Refreshes are conditional on the upstream's ETag or Last-Modified, and are diffed against the current
+ * snapshot, so an unchanged catalog publishes nothing. Each replacement is announced with a
+ * {@link ProductCatalogRefreshedEvent} describing which products changed.
+ */
 // TODO: determine how to keep package privacy and still mock.
+@Slf4j
 @Component
 public class ProductsCache {
 
     final ApiServiceClient client;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AtomicReference<ProductCatalog> snapshot = new AtomicReference<>();
+    private final Counter refreshFailures;
+    private final SingleFlight<ProductCatalog> inFlightRefresh;
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private volatile CacheValidators validators = CacheValidators.NONE;
+    private volatile Instant lastRefreshedAt;
 
-    public ProductsCache(final ApiServiceClient client){
+    public ProductsCache(
+            final ApiServiceClient client,
+            final GatewayConfig gatewayConfig,
+            final ApplicationEventPublisher eventPublisher,
+            final MeterRegistry meterRegistry){
         this.client = client;
+        this.eventPublisher = eventPublisher;
+        this.inFlightRefresh = new SingleFlight<>(gatewayConfig.getRefreshTimeout());
+        this.refreshFailures = Counter.builder("products_catalog_refresh_failures")
+                .description("Number of failed product catalog refreshes")
+                .register(meterRegistry);
+        Gauge.builder("products_catalog_size", this, ProductsCache::currentSize)
+                .description("Number of products in the current catalog snapshot")
+                .register(meterRegistry);
+        Gauge.builder("products_catalog_age_seconds", this, ProductsCache::currentAgeSeconds)
+                .description("Seconds since the catalog was last confirmed to be up to date")
+                .register(meterRegistry);
     }
 
-    @Cacheable("products")
-    public Map<String, Product> getCache() {
-        return this.client.getAllProducts().stream().collect(Collectors.toMap(Product::id, Function.identity()));
+    /**
+     * Returns the latest published catalog snapshot.
+     *
+     * @return the current catalog snapshot
+     */
+    public ProductCatalog getSnapshot() {
+        final var current = this.snapshot.get();
+        if(current != null) {
+            return current;
+        }
+        try {
+            return refreshAsync().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
     }
 
-    // TODO: add metrics and alerting for this
-    @Scheduled(cron = "*/5 * * * *")
-    @CacheEvict("products")
-    void evictCache() {}
+    /**
+     * Fetches the catalog from the upstream in the background.
+     */
+    @Scheduled(fixedDelayString = "${products-api.catalog-refresh-interval:PT5M}")
+    public void refresh() {
+        refreshAsync();
+    }
+
+    /**
+     * Fetches the catalog from the upstream and publishes it as the new snapshot if anything has changed,
+     * joining any refresh already in flight. On failure the previous snapshot is kept in place.
+     *
+     * @return the current snapshot, once refreshed
+     */
+    public CompletableFuture<ProductCatalog> refreshAsync() {
+        return this.inFlightRefresh.run(() -> fetch()
+                .thenApply(this::publish)
+                .whenComplete((loaded, failure) -> {
+                    if(failure != null) {
+                        this.refreshFailures.increment();
+                        log.error("failed to refresh product catalog, keeping previous snapshot", failure);
+                    }
+                }));
+    }
+
+    private CompletableFuture<ConditionalResponse<ProductCatalog>> fetch() {
+        final var current = this.snapshot.get();
+        // Without a snapshot to fall back on, always fetch the full catalog.
+        return this.client.fetchCatalog(current == null ? CacheValidators.NONE : this.validators, current);
+    }
+
+    private ProductCatalog publish(final ConditionalResponse<ProductCatalog> response) {
+        // A lock rather than synchronized, which would pin a virtual thread to its carrier while publishing.
+        this.publishLock.lock();
+        try {
+            final var previous = this.snapshot.get();
+            this.lastRefreshedAt = Instant.now();
+            this.validators = response.validators();
+            if(previous == null && !response.modified()) {
+                throw new UpstreamException("products API responded not modified to an unconditional request");
+            }
+            if(!response.modified() || response.body() == previous) {
+                log.debug("product catalog unchanged");
+                return previous;
+            }
 
+            final var loaded = response.body();
+            this.snapshot.set(loaded);
+            if(previous == null) {
+                log.info(String.format("loaded product catalog version %d with %d products", loaded.version(), loaded.size()));
+                return loaded;
+            }
+
+            final var changes = ProductCatalogChanges.between(previous, loaded);
+            log.info(String.format(
+                    "loaded product catalog version %d with %d products: %d added, %d removed, %d repriced",
+                    loaded.version(),
+                    loaded.size(),
+                    changes.added().size(),
+                    changes.removed().size(),
+                    changes.repriced().size()));
+            this.eventPublisher.publishEvent(new ProductCatalogRefreshedEvent(previous, loaded, changes));
+            return loaded;
+        } finally {
+            this.publishLock.unlock();
+        }
+    }
+
+    private double currentSize() {
+        final var current = this.snapshot.get();
+        return current == null ? Double.NaN : current.size();
+    }
+
+    private double currentAgeSeconds() {
+        final var refreshedAt = this.lastRefreshedAt;
+        return refreshedAt == null ? Double.NaN : Duration.between(refreshedAt, Instant.now()).toMillis() / 1000.0;
+    }
 }
@@ -0,0 +1,143 @@
+package dev.punchcafe.bazaar.warmup;
+
+import dev.punchcafe.bazaar.config.WarmUpConfiguration;
+import dev.punchcafe.bazaar.currency.CurrencyRatesCache;
+import dev.punchcafe.bazaar.packages.PackageService;
+import dev.punchcafe.bazaar.products.ProductsCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Loads the caches as soon as the application has started, so the first requests after a deploy don't
+ * pay for the product catalog and currency rates downloads inline. The catalog and rates load in parallel,
+ * followed by the first packages (if configured), which are priced against the catalog.
+ * Reports OUT_OF_SERVICE until every step has succeeded; as part of the readiness health group, this keeps
+ * the instance from receiving traffic until it's warm. Failed steps are retried until they succeed.
+ */
+@Slf4j
+@Component("warmUp")
+public class CacheWarmUp implements HealthIndicator {
+
+    private static final String PRODUCT_CATALOG_STEP = "product_catalog";
+    private static final String CURRENCY_RATES_STEP = "currency_rates";
+    private static final String PACKAGES_STEP = "packages";
+
+    private final ProductsCache productsCache;
+    private final CurrencyRatesCache currencyRatesCache;
+    private final PackageService packageService;
+    private final WarmUpConfiguration configuration;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, StepStatus> steps = new ConcurrentHashMap<>();
+    private volatile boolean complete;
+
+    public CacheWarmUp(
+            final ProductsCache productsCache,
+            final CurrencyRatesCache currencyRatesCache,
+            final PackageService packageService,
+            final WarmUpConfiguration configuration,
+            final MeterRegistry meterRegistry) {
+        this.productsCache = productsCache;
+        this.currencyRatesCache = currencyRatesCache;
+        this.packageService = packageService;
+        this.configuration = configuration;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onApplicationStarted() {
+        if(this.configuration.isEnabled()) {
+            start();
+        }
+    }
+
+    /**
+     * Starts warming up the caches in the background.
+     *
+     * @return completes once every step has succeeded.
+     */
+    public CompletableFuture<Void> start() {
+        final var packagesToLoad = this.configuration.getPackages();
+        if(packagesToLoad > 0) {
+            this.steps.put(PACKAGES_STEP, StepStatus.PENDING);
+        }
+        final var catalog = step(PRODUCT_CATALOG_STEP, this.productsCache::refreshAsync);
+        final var rates = step(CURRENCY_RATES_STEP, this.currencyRatesCache::refreshAsync);
+        final var packages = packagesToLoad <= 0
+                ? CompletableFuture.<Void>completedFuture(null)
+                // Blocks on the database, but only the once.
+                : catalog.thenCompose(loaded -> step(
+                        PACKAGES_STEP,
+                        () -> CompletableFuture.supplyAsync(() -> this.packageService.preload(packagesToLoad))));
+
+        return CompletableFuture.allOf(catalog, rates, packages).thenRun(() -> {
+            this.complete = true;
+            log.info("warm-up complete, ready to receive traffic");
+        });
+    }
+
+    @Override
+    public Health health() {
+        if(!this.configuration.isEnabled()) {
+            return Health.up().withDetail("enabled", false).build();
+        }
+        final var health = this.complete ? Health.up() : Health.outOfService();
+        return health.withDetails(new TreeMap<>(this.steps)).build();
+    }
+
+    private CompletableFuture<Void> step(final String name, final Supplier<? extends CompletableFuture<?>> action) {
+        final var timer = Timer.builder("warm_up_step")
+                .description("Time taken by each start up warm-up step to succeed, including retries")
+                .tag("step", name)
+                .register(this.meterRegistry);
+        final long startedAt = System.nanoTime();
+        this.steps.put(name, StepStatus.PENDING);
+        return attempt(name, action).thenRun(() -> {
+            final long elapsed = System.nanoTime() - startedAt;
+            timer.record(elapsed, TimeUnit.NANOSECONDS);
+            this.steps.put(name, StepStatus.COMPLETE);
+            log.info(String.format("warm-up step %s completed in %d ms", name, TimeUnit.NANOSECONDS.toMillis(elapsed)));
+        });
+    }
+
+    private CompletableFuture<Void> attempt(final String name, final Supplier<? extends CompletableFuture<?>> action) {
+        CompletableFuture<?> attempt;
+        try {
+            attempt = action.get();
+        } catch (RuntimeException e) {
+            attempt = CompletableFuture.failedFuture(e);
+        }
+        return attempt.handle((result, failure) -> {
+            if(failure == null) {
+                return CompletableFuture.<Void>completedFuture(null);
+            }
+            this.steps.put(name, StepStatus.RETRYING);
+            log.warn(String.format(
+                    "warm-up step %s failed, retrying in %s",
+                    name,
+                    this.configuration.getRetryInterval()), failure);
+            final var retryDelay = CompletableFuture.delayedExecutor(
+                    this.configuration.getRetryInterval().toMillis(), TimeUnit.MILLISECONDS);
+            return CompletableFuture.runAsync(() -> {}, retryDelay).thenCompose(ignored -> attempt(name, action));
+        }).thenCompose(Function.identity());
+    }
+
+    private enum StepStatus {
+        PENDING,
+        RETRYING,
+        COMPLETE
+    }
+}
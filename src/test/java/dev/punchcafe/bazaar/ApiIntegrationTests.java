@@ -1,38 +1,89 @@
 package dev.punchcafe.bazaar;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import dev.punchcafe.bazaar.api.schema.BulkPackageEntry;
+import dev.punchcafe.bazaar.api.schema.BulkPackageRequest;
+import dev.punchcafe.bazaar.api.schema.BulkPackageResponse;
+import dev.punchcafe.bazaar.api.schema.BulkPackageResult;
 import dev.punchcafe.bazaar.api.schema.ChangePackageRequest;
 import dev.punchcafe.bazaar.api.schema.ErrorResponse;
 import dev.punchcafe.bazaar.api.schema.ListPackageResponse;
+import dev.punchcafe.bazaar.api.schema.MultiGetPackageResponse;
 import dev.punchcafe.bazaar.api.schema.PackageResource;
 import dev.punchcafe.bazaar.config.ApiConfiguration;
+import dev.punchcafe.bazaar.config.GatewayConfig;
+import dev.punchcafe.bazaar.config.HttpMessageConverterConfiguration;
+import dev.punchcafe.bazaar.config.ProductsApiConfiguration;
+import dev.punchcafe.bazaar.config.WarmUpConfiguration;
 import dev.punchcafe.bazaar.currency.CurrencyApiResponse;
+import dev.punchcafe.bazaar.currency.CurrencyRates;
 import dev.punchcafe.bazaar.currency.CurrencyRatesCache;
+import dev.punchcafe.bazaar.gateway.CacheValidators;
+import dev.punchcafe.bazaar.gateway.ConditionalResponse;
+import dev.punchcafe.bazaar.gateway.UpstreamClients;
+import dev.punchcafe.bazaar.gateway.UpstreamException;
+import dev.punchcafe.bazaar.limits.ConcurrencyLimits;
+import dev.punchcafe.bazaar.metrics.RequestStages;
 import dev.punchcafe.bazaar.packages.Package;
 import dev.punchcafe.bazaar.packages.PackageService;
 import dev.punchcafe.bazaar.packages.repository.PackageProductRepository;
 import dev.punchcafe.bazaar.packages.repository.PackageRepository;
+import dev.punchcafe.bazaar.products.ApiServiceClient;
 import dev.punchcafe.bazaar.products.Product;
+import dev.punchcafe.bazaar.products.ProductCatalog;
+import dev.punchcafe.bazaar.products.ProductCatalogChanges;
+import dev.punchcafe.bazaar.products.ProductCatalogLayout;
+import dev.punchcafe.bazaar.products.ProductCatalogRefreshedEvent;
+import dev.punchcafe.bazaar.products.ProductService;
 import dev.punchcafe.bazaar.products.ProductsCache;
+import dev.punchcafe.bazaar.warmup.CacheWarmUp;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Status;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @Slf4j
@@ -76,6 +127,10 @@ class ApiIntegrationTests {
     private final PackageProductRepository packagePackageRepository;
     private final ApiConfiguration apiConfiguration;
     private final PackageService packageService;
+    private final ProductService productService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrencyLimits concurrencyLimits;
 
     @Autowired
     ApiIntegrationTests(
@@ -85,23 +140,31 @@ class ApiIntegrationTests {
             final PackageRepository packageRepository,
             final PackageProductRepository packagePackageRepository,
             final PackageService packageService,
-            final ApiConfiguration apiConfiguration) {
+            final ProductService productService,
+            final ApiConfiguration apiConfiguration,
+            final ApplicationEventPublisher eventPublisher,
+            final MeterRegistry meterRegistry,
+            final ConcurrencyLimits concurrencyLimits) {
         this.currencyRatesCache = currencyRatesCache;
         this.productsCache = productsCache;
         this.restTemplate = restTemplate;
         this.packageRepository = packageRepository;
         this.packagePackageRepository = packagePackageRepository;
         this.packageService = packageService;
+        this.productService = productService;
         this.apiConfiguration = apiConfiguration;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.concurrencyLimits = concurrencyLimits;
     }
 
     @BeforeEach
     public void clearDatabase() {
         this.packagePackageRepository.deleteAll();
         this.packageRepository.deleteAll();;
-        when(productsCache.getCache()).thenReturn(SAMPLE_PRODUCT_CACHE);
-        when(currencyRatesCache.fetchRates()).thenReturn(
-                new CurrencyApiResponse("USD", "2025-12-18", SAMPLE_CONVERSION_RATES)
+        when(productsCache.getSnapshot()).thenReturn(ProductCatalog.of(SAMPLE_PRODUCT_CACHE));
+        when(currencyRatesCache.getRates()).thenReturn(
+                CurrencyRates.of(new CurrencyApiResponse("USD", "2025-12-18", SAMPLE_CONVERSION_RATES))
         );
     }
 
@@ -464,6 +527,125 @@ class ApiIntegrationTests {
     }
 
 
+    @Test
+    void getPackage_neverServesCachedPackageAfterUpdateOrDelete() {
+        // Arrange
+        final var createRequest = ChangePackageRequest.builder()
+                .name(TEST_PRODUCT_NAME)
+                .description(TEST_PRODUCT_DESCRIPTION)
+                .productIds(List.of(SAMPLE_PRODUCT_ID_1))
+                .build();
+        final var createdEntity = POST_productPackage(createRequest).getBody();
+        final var updateRequest = ChangePackageRequest.builder()
+                .name(UPDATED_PRODUCT_NAME)
+                .description(UPDATED_PRODUCT_DESCRIPTION)
+                .productIds(List.of(SAMPLE_PRODUCT_ID_2, SAMPLE_PRODUCT_ID_3))
+                .build();
+
+        // Act
+        final var cachedResponse = GET_productPackage(createdEntity.id());
+        PUT_productPackage(createdEntity.id(), updateRequest);
+        final var updatedResponse = GET_productPackage(createdEntity.id());
+        DELETE_productPackage(createdEntity.id());
+        final var deletedResponse = GET_productPackage(createdEntity.id());
+
+        // Assert
+        assertEquals(TEST_PRODUCT_NAME, cachedResponse.getBody().name());
+        assertEquals(UPDATED_PRODUCT_NAME, updatedResponse.getBody().name());
+        assertThat(updatedResponse.getBody().productIds())
+                .containsExactlyInAnyOrder(SAMPLE_PRODUCT_ID_2, SAMPLE_PRODUCT_ID_3);
+        assertEquals(HttpStatus.NOT_FOUND, deletedResponse.getStatusCode());
+    }
+
+    @Test
+    void getPackage_returns304IfETagUnchangedAnd200OnceUpdated() {
+        // Arrange
+        final var createRequest = ChangePackageRequest.builder()
+                .name(TEST_PRODUCT_NAME)
+                .description(TEST_PRODUCT_DESCRIPTION)
+                .productIds(List.of(SAMPLE_PRODUCT_ID_1))
+                .build();
+        final var createdEntity = POST_productPackage(createRequest).getBody();
+        final var updateRequest = ChangePackageRequest.builder()
+                .name(UPDATED_PRODUCT_NAME)
+                .description(TEST_PRODUCT_DESCRIPTION)
+                .productIds(List.of(SAMPLE_PRODUCT_ID_1))
+                .build();
+
+        // Act
+        final var firstResponse = GET_productPackage(createdEntity.id());
+        final var etag = firstResponse.getHeaders().getETag();
+        final var notModifiedResponse = GET_productPackageIfNoneMatch(createdEntity.id(), "USD", etag);
+        final var otherCurrencyResponse = GET_productPackageIfNoneMatch(createdEntity.id(), "GBP", etag);
+        PUT_productPackage(createdEntity.id(), updateRequest);
+        final var updatedResponse = GET_productPackageIfNoneMatch(createdEntity.id(), "USD", etag);
+
+        // Assert
+        assertNotNull(etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, notModifiedResponse.getStatusCode());
+        assertNull(notModifiedResponse.getBody());
+        assertEquals(HttpStatus.OK, otherCurrencyResponse.getStatusCode());
+        assertEquals(HttpStatus.OK, updatedResponse.getStatusCode());
+        assertEquals(UPDATED_PRODUCT_NAME, updatedResponse.getBody().name());
+        assertNotEquals(etag, updatedResponse.getHeaders().getETag());
+    }
+
+    @Test
+    void getPackage_keepsItsETagAcrossARestartButNotAPriceChange() {
+        // Arrange
+        final var createRequest = ChangePackageRequest.builder()
+                .name(TEST_PRODUCT_NAME)
+                .description(TEST_PRODUCT_DESCRIPTION)
+                .productIds(List.of(SAMPLE_PRODUCT_ID_1))
+                .build();
+        final var createdEntity = POST_productPackage(createRequest).getBody();
+        final var etag = GET_productPackageWithCurrency(createdEntity.id(), "GBP").getHeaders().getETag();
+        final var repricedProducts = new HashMap<>(SAMPLE_PRODUCT_CACHE);
+        repricedProducts.put(SAMPLE_PRODUCT_ID_1, new Product(SAMPLE_PRODUCT_ID_1, "Shield", 100));
+        final var changedRates = new HashMap<>(SAMPLE_CONVERSION_RATES);
+        changedRates.put("GBP", 0.75);
+
+        // Act
+        // Another instance, or this one after a restart, has loaded the same content under other versions.
+        when(productsCache.getSnapshot()).thenReturn(ProductCatalog.of(SAMPLE_PRODUCT_CACHE.values(), 41, Instant.now()));
+        when(currencyRatesCache.getRates()).thenReturn(CurrencyRates.of(
+                new CurrencyApiResponse("USD", "2025-12-18", SAMPLE_CONVERSION_RATES), 17, Instant.now()));
+        final var afterRestart = GET_productPackageIfNoneMatch(createdEntity.id(), "GBP", etag);
+        when(currencyRatesCache.getRates()).thenReturn(CurrencyRates.of(
+                new CurrencyApiResponse("USD", "2025-12-19", changedRates), 18, Instant.now()));
+        final var afterRateChange = GET_productPackageIfNoneMatch(createdEntity.id(), "GBP", etag);
+        when(productsCache.getSnapshot()).thenReturn(ProductCatalog.of(repricedProducts.values(), 42, Instant.now()));
+        final var afterPriceChange = GET_productPackageIfNoneMatch(
+                createdEntity.id(), "GBP", afterRateChange.getHeaders().getETag());
+
+        // Assert
+        assertNotNull(etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, afterRestart.getStatusCode());
+        assertEquals(HttpStatus.OK, afterRateChange.getStatusCode());
+        assertEquals((float) (SAMPLE_PRODUCT_1.usdPrice() * 0.75), afterRateChange.getBody().totalPrice(), 0.01);
+        assertEquals(HttpStatus.OK, afterPriceChange.getStatusCode());
+        assertEquals((float) (100 * 0.75), afterPriceChange.getBody().totalPrice(), 0.01);
+    }
+
+    @Test
+    void listPackages_returns304IfETagUnchangedAnd200OncePageChanges() {
+        // Arrange
+        provisionProductPackage(TEST_PRODUCT_NAME, TEST_PRODUCT_DESCRIPTION);
+
+        // Act
+        final var firstResponse = GET_productPackages(10, 0);
+        final var etag = firstResponse.getHeaders().getETag();
+        final var notModifiedResponse = GET_productPackagesIfNoneMatch(etag);
+        provisionProductPackage(UPDATED_PRODUCT_NAME, UPDATED_PRODUCT_DESCRIPTION);
+        final var changedResponse = GET_productPackagesIfNoneMatch(etag);
+
+        // Assert
+        assertNotNull(etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, notModifiedResponse.getStatusCode());
+        assertEquals(HttpStatus.OK, changedResponse.getStatusCode());
+        assertEquals(2, changedResponse.getBody().packages().size());
+    }
+
     @Test
     void updatePackage_canSetProductsToEmpty() {
         // Arrange
@@ -554,6 +736,285 @@ class ApiIntegrationTests {
         assertEquals(SAMPLE_PRODUCT_3.usdPrice() + SAMPLE_PRODUCT_4.usdPrice(), updatedEntity.totalPrice());
     }
 
+    @Test
+    void getPackage_reflectsRepricedProductsAfterCatalogRefresh() {
+        // Arrange
+        final var createRequest = ChangePackageRequest.builder()
+                .name(TEST_PRODUCT_NAME)
+                .description(TEST_PRODUCT_DESCRIPTION)
+                .productIds(List.of(SAMPLE_PRODUCT_ID_1, SAMPLE_PRODUCT_ID_2))
+                .build();
+
+        final var creationResponse = POST_productPackage(createRequest);
+        Assumptions.assumeTrue(HttpStatus.CREATED == creationResponse.getStatusCode());
+
+        final var previousCatalog = productsCache.getSnapshot();
+        final var repricedProducts = new HashMap<>(SAMPLE_PRODUCT_CACHE);
+        repricedProducts.put(SAMPLE_PRODUCT_ID_1, new Product(SAMPLE_PRODUCT_ID_1, "Shield", 100));
+        final var repricedCatalog = new ProductCatalog(repricedProducts, previousCatalog.version() + 1, Instant.now());
+
+        // Act
+        when(productsCache.getSnapshot()).thenReturn(repricedCatalog);
+        eventPublisher.publishEvent(new ProductCatalogRefreshedEvent(
+                previousCatalog,
+                repricedCatalog,
+                ProductCatalogChanges.between(previousCatalog, repricedCatalog)));
+        final var response = GET_productPackage(creationResponse.getBody().id());
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(100 + SAMPLE_PRODUCT_2.usdPrice(), response.getBody().totalPrice());
+    }
+
+    @Test
+    void getPackage_pricesAndResolvesProductsFromACompactCatalog() {
+        // Arrange
+        final var createRequest = ChangePackageRequest.builder()
+                .name(TEST_PRODUCT_NAME)
+                .description(TEST_PRODUCT_DESCRIPTION)
+                .productIds(List.of(SAMPLE_PRODUCT_ID_1, SAMPLE_PRODUCT_ID_2))
+                .build();
+        final var creationResponse = POST_productPackage(createRequest);
+        Assumptions.assumeTrue(HttpStatus.CREATED == creationResponse.getStatusCode());
+
+        final var builder = ProductCatalog.builder(null, ProductCatalogLayout.COMPACT);
+        SAMPLE_PRODUCT_CACHE.values().forEach(product -> builder.product(product.id(), product.name(), product.usdPrice()));
+        final var compactCatalog = builder.build(Instant.now());
+
+        // Act
+        when(productsCache.getSnapshot()).thenReturn(compactCatalog);
+        final var response = GET_productPackage(creationResponse.getBody().id());
+
+        // Assert
+        assertEquals(ProductCatalogLayout.COMPACT, compactCatalog.layout());
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(SAMPLE_PRODUCT_1.usdPrice() + SAMPLE_PRODUCT_2.usdPrice(), response.getBody().totalPrice());
+        assertEquals(Optional.of(SAMPLE_PRODUCT_3), productService.lookup(SAMPLE_PRODUCT_ID_3));
+        assertEquals(Optional.empty(), productService.lookup("AAAAAAAAAAAA"));
+    }
+
+    @Test
+    void productsCache_swapsInEachRefreshedSnapshotWithoutChangingOnesAlreadyHeld() {
+        // Arrange
+        final var client = mock(ApiServiceClient.class);
+        final var initial = ProductCatalog.of(List.of(SAMPLE_PRODUCT_1, SAMPLE_PRODUCT_2), 1, Instant.now());
+        final var refreshed = ProductCatalog.of(List.of(SAMPLE_PRODUCT_1, SAMPLE_PRODUCT_2, SAMPLE_PRODUCT_3), 2, Instant.now());
+        when(client.fetchCatalog(any(), any())).thenReturn(
+                CompletableFuture.completedFuture(new ConditionalResponse<>(initial, CacheValidators.NONE)),
+                CompletableFuture.completedFuture(new ConditionalResponse<>(refreshed, CacheValidators.NONE)),
+                CompletableFuture.failedFuture(new UpstreamException("products unavailable")));
+        final var cache = new ProductsCache(
+                client, new GatewayConfig(), mock(ApplicationEventPublisher.class), new SimpleMeterRegistry());
+
+        // Act
+        final var loaded = cache.getSnapshot();
+        final var held = cache.getSnapshot();
+        cache.refreshAsync().join();
+        final var afterRefresh = cache.getSnapshot();
+        assertThrows(CompletionException.class, () -> cache.refreshAsync().join());
+        final var afterFailedRefresh = cache.getSnapshot();
+
+        // Assert
+        // Only the first read waits on the upstream; later reads share the published snapshot.
+        assertSame(initial, loaded);
+        assertSame(loaded, held);
+        assertSame(refreshed, afterRefresh);
+        // A reader holding the previous snapshot keeps seeing it whole, and can't change it.
+        assertEquals(2, held.size());
+        assertEquals(Optional.empty(), held.lookup(SAMPLE_PRODUCT_ID_3));
+        assertThrows(UnsupportedOperationException.class, () -> held.products().put(SAMPLE_PRODUCT_ID_4, SAMPLE_PRODUCT_4));
+        assertEquals(Optional.of(SAMPLE_PRODUCT_3), afterRefresh.lookup(SAMPLE_PRODUCT_ID_3));
+        // A failed refresh leaves the last good snapshot in place.
+        assertSame(refreshed, afterFailedRefresh);
+        verify(client, times(3)).fetchCatalog(any(), any());
+    }
+
+    @Test
+    void productsCache_refreshesConditionallyAndAnnouncesOnlyTheProductsWhichChanged() throws Exception {
+        // Arrange
+        final var objectMapper = new ObjectMapper();
+        final var catalog = new AtomicReference<>(List.of(SAMPLE_PRODUCT_1, SAMPLE_PRODUCT_2, SAMPLE_PRODUCT_3, SAMPLE_PRODUCT_4));
+        final var etag = new AtomicReference<>("\"v1\"");
+        final var ifNoneMatch = new ArrayList<String>();
+        final var server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/products", exchange -> {
+            final var validator = exchange.getRequestHeaders().getFirst("If-None-Match");
+            ifNoneMatch.add(validator);
+            exchange.getResponseHeaders().set("ETag", etag.get());
+            if(etag.get().equals(validator)) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                final var body = objectMapper.writeValueAsBytes(catalog.get());
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+        final var eventPublisher = mock(ApplicationEventPublisher.class);
+        final var cache = new ProductsCache(
+                productsApiClient(server, ProductCatalogLayout.HASH_MAP),
+                new GatewayConfig(),
+                eventPublisher,
+                new SimpleMeterRegistry());
+        final var addedProduct = new Product("Q2nTz8WjLmXa", "Bow", 649);
+
+        try {
+            // Act
+            final var loaded = cache.getSnapshot();
+            final var notModified = cache.refreshAsync().get(5, TimeUnit.SECONDS);
+            catalog.set(List.of(
+                    SAMPLE_PRODUCT_1,
+                    new Product(SAMPLE_PRODUCT_ID_2, SAMPLE_PRODUCT_2.name(), 1099),
+                    new Product(SAMPLE_PRODUCT_ID_3, "Longsword", SAMPLE_PRODUCT_3.usdPrice()),
+                    addedProduct));
+            etag.set("\"v2\"");
+            final var refreshed = cache.refreshAsync().get(5, TimeUnit.SECONDS);
+
+            // Assert
+            assertEquals(Arrays.asList(null, "\"v1\"", "\"v1\""), ifNoneMatch);
+            assertEquals(4, loaded.size());
+            // Not modified keeps the same snapshot, and announces nothing.
+            assertSame(loaded, notModified);
+            final var event = ArgumentCaptor.forClass(ProductCatalogRefreshedEvent.class);
+            verify(eventPublisher, times(1)).publishEvent(event.capture());
+            assertSame(loaded, event.getValue().previous());
+            assertSame(refreshed, event.getValue().current());
+            assertEquals(loaded.version() + 1, refreshed.version());
+            // Renaming a product doesn't change any package's price, so isn't announced.
+            assertEquals(
+                    new ProductCatalogChanges(Set.of(addedProduct.id()), Set.of(SAMPLE_PRODUCT_ID_4), Set.of(SAMPLE_PRODUCT_ID_2)),
+                    event.getValue().changes());
+            assertEquals(Optional.of("Longsword"), refreshed.lookup(SAMPLE_PRODUCT_ID_3).map(Product::name));
+            // Unchanged products keep their instances from the previous snapshot.
+            assertSame(loaded.lookup(SAMPLE_PRODUCT_ID_1).orElseThrow(), refreshed.lookup(SAMPLE_PRODUCT_ID_1).orElseThrow());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void apiServiceClient_streamsTheCatalogAndRejectsMalformedOrTruncatedBodies() throws Exception {
+        // Arrange
+        final var body = new AtomicReference<String>();
+        final var server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/products", exchange -> {
+            // Chunked, so a truncated body ends cleanly rather than short of its length.
+            exchange.sendResponseHeaders(200, 0);
+            exchange.getResponseBody().write(body.get().getBytes(StandardCharsets.UTF_8));
+            exchange.close();
+        });
+        server.start();
+        final var client = productsApiClient(server, ProductCatalogLayout.COMPACT);
+        final var current = ProductCatalog.of(List.of(SAMPLE_PRODUCT_1), 1, Instant.now());
+        final var invalidBodies = List.of(
+                "{\"products\": []}",
+                "[\"VqKb4tyj9V6i\"]",
+                "[{\"name\": \"Shield\", \"usdPrice\": 1149}]",
+                "[{\"id\": \"VqKb4tyj9V6i\", \"name\": \"Shield\", \"usdPrice\": 1149}, {\"id\": \"DXSQ",
+                "[{\"id\": \"VqKb4tyj9V6i\", \"name\": \"Shield\", \"usdPrice\": 1149}");
+
+        try {
+            // Act
+            body.set("""
+                    [
+                      {"id": "VqKb4tyj9V6i", "name": "Shield", "usdPrice": 1149, "description": "Round", "tags": ["wood"]},
+                      {"id": "DXSQpv6XVeJm", "name": "Helmet", "usdPrice": 999, "supplier": {"name": "Smith", "ids": [1, 2]}}
+                    ]
+                    """);
+            final var fetched = client.fetchCatalog(CacheValidators.NONE, current).get(5, TimeUnit.SECONDS);
+            final var failures = new ArrayList<Throwable>();
+            for(final var invalidBody : invalidBodies) {
+                body.set(invalidBody);
+                failures.add(assertThrows(
+                        ExecutionException.class,
+                        () -> client.fetchCatalog(CacheValidators.NONE, current).get(5, TimeUnit.SECONDS),
+                        invalidBody).getCause());
+            }
+
+            // Assert
+            // Fields the catalog doesn't use, however deeply nested, are skipped.
+            final var catalog = fetched.body();
+            assertEquals(ProductCatalogLayout.COMPACT, catalog.layout());
+            assertEquals(current.version() + 1, catalog.version());
+            assertEquals(2, catalog.size());
+            assertEquals(Optional.of(SAMPLE_PRODUCT_1), catalog.lookup(SAMPLE_PRODUCT_ID_1));
+            assertEquals(Optional.of(SAMPLE_PRODUCT_2), catalog.lookup(SAMPLE_PRODUCT_ID_2));
+            for(final var failure : failures) {
+                assertInstanceOf(UpstreamException.class, failure);
+                assertEquals("products_api responded with an unreadable body", failure.getMessage());
+            }
+            // The snapshot being read from is untouched by a failed read.
+            assertEquals(1, current.size());
+            assertEquals(Optional.of(SAMPLE_PRODUCT_1), current.lookup(SAMPLE_PRODUCT_ID_1));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void warmUp_reportsOutOfServiceUntilEveryStepHasSucceeded() {
+        // Arrange
+        generateEmptyPackages(3);
+        final var configuration = new WarmUpConfiguration();
+        configuration.setPackages(2);
+        configuration.setRetryInterval(Duration.ofMillis(10));
+        final var meterRegistry = new SimpleMeterRegistry();
+        final var warmUp = new CacheWarmUp(productsCache, currencyRatesCache, packageService, configuration, meterRegistry);
+        final var catalog = productsCache.getSnapshot();
+        final var rates = currencyRatesCache.getRates();
+        when(productsCache.refreshAsync()).thenReturn(CompletableFuture.completedFuture(catalog));
+        when(currencyRatesCache.refreshAsync()).thenReturn(
+                CompletableFuture.failedFuture(new UpstreamException("rates unavailable")),
+                CompletableFuture.completedFuture(rates));
+        final var statusBeforeStart = warmUp.health().getStatus();
+
+        // Act
+        warmUp.start().join();
+
+        // Assert
+        assertEquals(Status.OUT_OF_SERVICE, statusBeforeStart);
+        assertEquals(Status.UP, warmUp.health().getStatus());
+        assertEquals(1, meterRegistry.get("warm_up_step").tag("step", "product_catalog").timer().count());
+        assertEquals(1, meterRegistry.get("warm_up_step").tag("step", "currency_rates").timer().count());
+        assertEquals(1, meterRegistry.get("warm_up_step").tag("step", "packages").timer().count());
+        // Failed once, then retried.
+        verify(currencyRatesCache, times(2)).refreshAsync();
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity("/actuator/health/readiness", String.class).getStatusCode());
+    }
+
+    @Test
+    void listPackages_timesEachStageTaggedByEndpointPageSizeAndCurrency() {
+        // Arrange
+        POST_productPackage(ChangePackageRequest.builder()
+                .name(TEST_PRODUCT_NAME)
+                .description(TEST_PRODUCT_DESCRIPTION)
+                .productIds(List.of(SAMPLE_PRODUCT_ID_1, SAMPLE_PRODUCT_ID_2))
+                .build());
+        final var stages = List.of(
+                RequestStages.HYDRATE,
+                RequestStages.CATALOG_LOOKUP,
+                RequestStages.CURRENCY_CONVERSION,
+                RequestStages.SERIALIZATION);
+        final var countsBefore = stages.stream().map(this::listPackagesStageCount).toList();
+
+        // Act
+        final var response = restTemplate.getForEntity(
+                "/packages?page_size=5&page_number=0&currency=GBP", ListPackageResponse.class);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        for(int i = 0; i < stages.size(); i++) {
+            assertTrue(listPackagesStageCount(stages.get(i)) > countsBefore.get(i), stages.get(i));
+        }
+        final var serialization = this.meterRegistry.get(RequestStages.METRIC)
+                .tags("endpoint", "list_packages", "page_size", "2-10", "currency", "GBP", "stage", RequestStages.SERIALIZATION)
+                .timer();
+        // Exported with SLO buckets, for the percentiles to be aggregated across instances.
+        assertThat(List.of(serialization.takeSnapshot().histogramCounts()))
+                .anyMatch(bucket -> bucket.bucket(TimeUnit.MILLISECONDS) == 100);
+    }
+
     @Test
     void updatePackage_returns404ifPackageDoesntExist() {
         // Arrange
@@ -833,6 +1294,84 @@ class ApiIntegrationTests {
         }
     }
 
+    @Test
+    void listPackages_cursorPaginationWalksAllPackagesInOrder() {
+        // Arrange
+        generateEmptyPackages(5);
+        final var actualNames = new ArrayList<String>();
+
+        // Act
+        var response = GET_productPackagesAfterCursor(2, "");
+        final var pageSizes = new ArrayList<Integer>();
+        while(true) {
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertNull(response.getBody().pageNumber());
+            pageSizes.add(response.getBody().packages().size());
+            response.getBody().packages().forEach(pkg -> actualNames.add(pkg.name()));
+            if(response.getBody().nextCursor() == null) {
+                break;
+            }
+            response = GET_productPackagesAfterCursor(2, response.getBody().nextCursor());
+        }
+
+        // Assert
+        assertEquals(List.of(2, 2, 1), pageSizes);
+        assertEquals(
+                List.of(generateName(0), generateName(1), generateName(2), generateName(3), generateName(4)),
+                actualNames);
+    }
+
+    @Test
+    void listPackagesContainingProduct_walksOnlyPackagesContainingTheProductInOrder() {
+        // Arrange
+        final var expectedIds = new ArrayList<Long>();
+        for(int i = 0; i < 5; i++) {
+            final var productIds = i % 2 == 0 ? List.of(SAMPLE_PRODUCT_ID_1, SAMPLE_PRODUCT_ID_2) : List.of(SAMPLE_PRODUCT_ID_3);
+            final var created = POST_productPackage(ChangePackageRequest.builder()
+                    .name(generateName(i))
+                    .description(TEST_PRODUCT_DESCRIPTION)
+                    .productIds(productIds)
+                    .build());
+            Assumptions.assumeTrue(HttpStatus.CREATED.equals(created.getStatusCode()));
+            if(productIds.contains(SAMPLE_PRODUCT_ID_2)) {
+                expectedIds.add(created.getBody().id());
+            }
+        }
+        final var actualIds = new ArrayList<Long>();
+        final var pageSizes = new ArrayList<Integer>();
+
+        // Act
+        var response = GET_packagesContainingProduct(SAMPLE_PRODUCT_ID_2, 2, "");
+        while(true) {
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            pageSizes.add(response.getBody().packages().size());
+            response.getBody().packages().forEach(pkg -> actualIds.add(pkg.id()));
+            if(response.getBody().nextCursor() == null) {
+                break;
+            }
+            response = GET_packagesContainingProduct(SAMPLE_PRODUCT_ID_2, 2, response.getBody().nextCursor());
+        }
+        final var unknownProductResponse = GET_packagesContainingProduct("AAAAAAAAAAAA", 2, "");
+
+        // Assert
+        assertEquals(List.of(2, 1), pageSizes);
+        assertEquals(expectedIds, actualIds);
+        assertEquals(HttpStatus.OK, unknownProductResponse.getStatusCode());
+        assertEquals(List.of(), unknownProductResponse.getBody().packages());
+        assertNull(unknownProductResponse.getBody().nextCursor());
+    }
+
+    @Test
+    void listPackages_returns400OnInvalidCursor() {
+        // Act
+        final var response = restTemplate.getForEntity(
+                "/packages?page_size=2&cursor={cursor}", ErrorResponse.class, "not-a-cursor");
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(new ErrorResponse("invalid query pagination parameters"), response.getBody());
+    }
+
     @Test
     void listPackages_returns400OnInvalidQueryParams() {
 
@@ -921,6 +1460,339 @@ class ApiIntegrationTests {
         // May need to update this in case productID ordering (not-guaranteed) creates equality issues.
     }
 
+    @Test
+    void exportPackages_streamsEveryPricedPackageAsNdjsonInIdOrder() throws Exception {
+        // Arrange
+        final var emptyPackage = provisionProductPackage(TEST_PRODUCT_NAME, TEST_PRODUCT_DESCRIPTION);
+        final var fullPackage = packageService.create(
+                UPDATED_PRODUCT_NAME, UPDATED_PRODUCT_DESCRIPTION, List.of(SAMPLE_PRODUCT_ID_1, SAMPLE_PRODUCT_ID_2));
+        final var singlePackage = packageService.create(
+                TEST_PRODUCT_NAME, TEST_PRODUCT_DESCRIPTION, List.of(SAMPLE_PRODUCT_ID_3));
+        final var objectMapper = new ObjectMapper();
+
+        // Act
+        final var response = restTemplate.getForEntity("/packages/export?currency=GBP", String.class);
+        final var lines = response.getBody().split("\n");
+        final var exported = new ArrayList<PackageResource>();
+        for(final var line : lines) {
+            exported.add(objectMapper.readValue(line, PackageResource.class));
+        }
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("application/x-ndjson", response.getHeaders().getContentType().toString());
+        assertTrue(response.getBody().endsWith("\n"));
+        assertEquals(
+                List.of(emptyPackage.id(), fullPackage.id(), singlePackage.id()),
+                exported.stream().map(PackageResource::id).toList());
+        assertEquals(List.of(), exported.get(0).productIds());
+        assertThat(exported.get(1).productIds()).containsExactlyInAnyOrder(SAMPLE_PRODUCT_ID_1, SAMPLE_PRODUCT_ID_2);
+        assertEquals("GBP", exported.get(1).currency());
+        assertEquals((float) ((1149 + 999) * 0.74631), exported.get(1).totalPrice(), 0.01);
+        assertEquals(List.of(SAMPLE_PRODUCT_ID_3), exported.get(2).productIds());
+    }
+
+    @Test
+    void bulkChange_createsAndUpdatesValidEntriesAndReportsFailures() {
+        // Arrange
+        final var existingPackage = provisionProductPackage(TEST_PRODUCT_NAME, TEST_PRODUCT_DESCRIPTION);
+        final var request = BulkPackageRequest.builder()
+                .packages(List.of(
+                        BulkPackageEntry.builder()
+                                .name("Bulk created")
+                                .description(TEST_PRODUCT_DESCRIPTION)
+                                .productIds(List.of(SAMPLE_PRODUCT_ID_1, SAMPLE_PRODUCT_ID_2))
+                                .build(),
+                        BulkPackageEntry.builder()
+                                .name("Unknown product")
+                                .description(TEST_PRODUCT_DESCRIPTION)
+                                .productIds(List.of("unknown_id"))
+                                .build(),
+                        BulkPackageEntry.builder()
+                                .id(existingPackage.id())
+                                .name(UPDATED_PRODUCT_NAME)
+                                .description(UPDATED_PRODUCT_DESCRIPTION)
+                                .productIds(List.of(SAMPLE_PRODUCT_ID_3))
+                                .build(),
+                        BulkPackageEntry.builder()
+                                .id(101202303L)
+                                .name(UPDATED_PRODUCT_NAME)
+                                .description(UPDATED_PRODUCT_DESCRIPTION)
+                                .productIds(List.of())
+                                .build(),
+                        BulkPackageEntry.builder()
+                                .name("Duplicate products")
+                                .description(TEST_PRODUCT_DESCRIPTION)
+                                .productIds(List.of(SAMPLE_PRODUCT_ID_1, SAMPLE_PRODUCT_ID_1))
+                                .build()
+                ))
+                .build();
+
+        // Act
+        final var response = restTemplate.postForEntity("/packages/bulk", request, BulkPackageResponse.class);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        final var results = response.getBody().results();
+        assertEquals(5, results.size());
+
+        assertEquals(BulkPackageResult.Status.CREATED, results.get(0).status());
+        assertEquals(SAMPLE_PRODUCT_1.usdPrice() + SAMPLE_PRODUCT_2.usdPrice(), results.get(0).resource().totalPrice());
+        final var created = GET_productPackage(results.get(0).resource().id());
+        assertEquals(HttpStatus.OK, created.getStatusCode());
+        assertEquals("Bulk created", created.getBody().name());
+        assertThat(created.getBody().productIds()).containsExactlyInAnyOrder(SAMPLE_PRODUCT_ID_1, SAMPLE_PRODUCT_ID_2);
+
+        assertEquals(new BulkPackageResult(1, BulkPackageResult.Status.FAILED, null, "unknown product ID"), results.get(1));
+
+        assertEquals(BulkPackageResult.Status.UPDATED, results.get(2).status());
+        final var updated = GET_productPackage(existingPackage.id());
+        assertEquals(UPDATED_PRODUCT_NAME, updated.getBody().name());
+        assertEquals(UPDATED_PRODUCT_DESCRIPTION, updated.getBody().description());
+        assertEquals(List.of(SAMPLE_PRODUCT_ID_3), updated.getBody().productIds());
+
+        assertEquals(new BulkPackageResult(3, BulkPackageResult.Status.FAILED, null, "package not found"), results.get(3));
+        assertEquals(
+                new BulkPackageResult(4, BulkPackageResult.Status.FAILED, null, "productIds may not contain duplicates"),
+                results.get(4));
+    }
+
+    @Test
+    void bulkChange_returns400IfTooManyEntries() {
+        // Arrange
+        final var entries = new ArrayList<BulkPackageEntry>();
+        for(int i = 0; i <= apiConfiguration.getMaxBulkSize(); i++) {
+            entries.add(BulkPackageEntry.builder()
+                    .name(generateName(i))
+                    .description(TEST_PRODUCT_DESCRIPTION)
+                    .productIds(List.of())
+                    .build());
+        }
+
+        // Act
+        final var response = restTemplate.postForEntity(
+                "/packages/bulk", new BulkPackageRequest(entries), ErrorResponse.class);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(0, packageRepository.count());
+    }
+
+    @Test
+    void multiGetPackages_returnsPricedPackagesInRequestedOrderAndReportsMissingIds() {
+        // Arrange
+        final var createdIds = new ArrayList<Long>();
+        for(int i = 0; i < 3; i++) {
+            final var created = POST_productPackage(ChangePackageRequest.builder()
+                    .name(generateName(i))
+                    .description(TEST_PRODUCT_DESCRIPTION)
+                    .productIds(List.of(SAMPLE_PRODUCT_ID_1, SAMPLE_PRODUCT_ID_2))
+                    .build());
+            Assumptions.assumeTrue(HttpStatus.CREATED.equals(created.getStatusCode()));
+            createdIds.add(created.getBody().id());
+        }
+        final long missingId = createdIds.get(2) + 1000;
+
+        // Act
+        final var response = restTemplate.getForEntity(
+                "/packages?ids={ids}&currency=GBP",
+                MultiGetPackageResponse.class,
+                String.format("%d,%d,%d,%d", createdIds.get(2), missingId, createdIds.get(0), createdIds.get(2)));
+        final var invalidIdResponse = restTemplate.getForEntity("/packages?ids=1,abc", ErrorResponse.class);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(
+                List.of(createdIds.get(2), createdIds.get(0)),
+                response.getBody().packages().stream().map(PackageResource::id).toList());
+        assertEquals(List.of(missingId), response.getBody().missingIds());
+        for(final var resource : response.getBody().packages()) {
+            assertEquals("GBP", resource.currency());
+            assertEquals(1603.0738525390625, resource.totalPrice(), 0.001);
+            assertThat(resource.productIds()).containsExactlyInAnyOrder(SAMPLE_PRODUCT_ID_1, SAMPLE_PRODUCT_ID_2);
+        }
+        assertEquals(HttpStatus.BAD_REQUEST, invalidIdResponse.getStatusCode());
+    }
+
+    @Test
+    void multiGetPackages_returns400IfTooManyIds() {
+        // Arrange
+        final var ids = new ArrayList<String>();
+        for(long id = 1; id <= apiConfiguration.getMaxMultiGetSize() + 1; id++) {
+            ids.add(Long.toString(id));
+        }
+
+        // Act
+        final var response = restTemplate.getForEntity(
+                "/packages?ids={ids}", ErrorResponse.class, String.join(",", ids));
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void binaryFormats_acceptRequestsAndNegotiateResponsesInCborAndSmile() throws Exception {
+        // Arrange
+        final var cbor = new ObjectMapper(HttpMessageConverterConfiguration.cborFactory());
+        final var smile = new ObjectMapper(HttpMessageConverterConfiguration.smileFactory());
+        final var smileType = MediaType.parseMediaType("application/x-jackson-smile");
+        final var request = ChangePackageRequest.builder()
+                .name(TEST_PRODUCT_NAME)
+                .description(TEST_PRODUCT_DESCRIPTION)
+                .productIds(List.of(SAMPLE_PRODUCT_ID_1, SAMPLE_PRODUCT_ID_2))
+                .build();
+        final var createHeaders = new HttpHeaders();
+        createHeaders.setContentType(smileType);
+        createHeaders.setAccept(List.of(smileType));
+
+        // Act
+        final var created = restTemplate.exchange(
+                "/packages", HttpMethod.POST, new HttpEntity<>(smile.writeValueAsBytes(request), createHeaders), byte[].class);
+        final var listHeaders = new HttpHeaders();
+        listHeaders.setAccept(List.of(MediaType.APPLICATION_CBOR));
+        final var listed = restTemplate.exchange(
+                "/packages?page_size=5&cursor=", HttpMethod.GET, new HttpEntity<>(listHeaders), byte[].class);
+        final var listedAsJson = restTemplate.getForEntity("/packages?page_size=5&cursor=", ListPackageResponse.class);
+
+        // Assert
+        assertEquals(HttpStatus.CREATED, created.getStatusCode());
+        assertTrue(smileType.isCompatibleWith(created.getHeaders().getContentType()));
+        final var createdResource = smile.readValue(created.getBody(), PackageResource.class);
+        assertEquals(TEST_PRODUCT_NAME, createdResource.name());
+        assertEquals(SAMPLE_PRODUCT_1.usdPrice() + SAMPLE_PRODUCT_2.usdPrice(), createdResource.totalPrice());
+
+        assertEquals(HttpStatus.OK, listed.getStatusCode());
+        assertTrue(MediaType.APPLICATION_CBOR.isCompatibleWith(listed.getHeaders().getContentType()));
+        assertEquals(listedAsJson.getBody(), cbor.readValue(listed.getBody(), ListPackageResponse.class));
+        assertTrue(MediaType.APPLICATION_JSON.isCompatibleWith(listedAsJson.getHeaders().getContentType()));
+    }
+
+    @Test
+    void binaryFormats_conditionalRequestsOnlyMatchTheETagOfTheSameEncoding() {
+        // Arrange
+        final var smileType = MediaType.parseMediaType("application/x-jackson-smile");
+        final var created = POST_productPackage(ChangePackageRequest.builder()
+                .name(TEST_PRODUCT_NAME)
+                .description(TEST_PRODUCT_DESCRIPTION)
+                .productIds(List.of(SAMPLE_PRODUCT_ID_1))
+                .build()).getBody();
+        final var packagePath = String.format("/packages/%d", created.id());
+        final var pagePath = "/packages?page_size=10&page_number=0";
+
+        // Act
+        final var asJson = GET_encodedIfNoneMatch(packagePath, MediaType.APPLICATION_JSON, null);
+        final var asCbor = GET_encodedIfNoneMatch(packagePath, MediaType.APPLICATION_CBOR, null);
+        final var cborIfJsonUnchanged = GET_encodedIfNoneMatch(
+                packagePath, MediaType.APPLICATION_CBOR, asJson.getHeaders().getETag());
+        final var cborIfCborUnchanged = GET_encodedIfNoneMatch(
+                packagePath, MediaType.APPLICATION_CBOR, asCbor.getHeaders().getETag());
+        final var pageAsJson = GET_encodedIfNoneMatch(pagePath, MediaType.APPLICATION_JSON, null);
+        final var smilePageIfJsonUnchanged = GET_encodedIfNoneMatch(
+                pagePath, smileType, pageAsJson.getHeaders().getETag());
+        final var smilePageIfSmileUnchanged = GET_encodedIfNoneMatch(
+                pagePath, smileType, smilePageIfJsonUnchanged.getHeaders().getETag());
+
+        // Assert
+        assertNotEquals(asJson.getHeaders().getETag(), asCbor.getHeaders().getETag());
+        assertEquals(HttpStatus.OK, cborIfJsonUnchanged.getStatusCode());
+        assertTrue(MediaType.APPLICATION_CBOR.isCompatibleWith(cborIfJsonUnchanged.getHeaders().getContentType()));
+        assertEquals(HttpStatus.NOT_MODIFIED, cborIfCborUnchanged.getStatusCode());
+        assertEquals(asCbor.getHeaders().getETag(), cborIfCborUnchanged.getHeaders().getETag());
+        assertNotEquals(pageAsJson.getHeaders().getETag(), smilePageIfJsonUnchanged.getHeaders().getETag());
+        assertEquals(HttpStatus.OK, smilePageIfJsonUnchanged.getStatusCode());
+        assertTrue(smileType.isCompatibleWith(smilePageIfJsonUnchanged.getHeaders().getContentType()));
+        assertEquals(HttpStatus.NOT_MODIFIED, smilePageIfSmileUnchanged.getStatusCode());
+        for(final var response : List.of(asJson, asCbor, cborIfCborUnchanged, pageAsJson, smilePageIfSmileUnchanged)) {
+            assertEquals(List.of(HttpHeaders.ACCEPT), response.getHeaders().getVary());
+        }
+    }
+
+    @Test
+    void concurrencyLimit_shedsReadsBeyondTheReadLimitWithoutAffectingWrites() {
+        // Arrange
+        final var readLimit = this.concurrencyLimits.read();
+        int acquired = 0;
+        while(readLimit.tryAcquire()) {
+            acquired++;
+        }
+        final var rejectedBefore = this.meterRegistry.get("concurrency_limit_rejected").tag("limit", "read").functionCounter().count();
+
+        try {
+            // Act
+            final var readResponse = restTemplate.getForEntity("/packages", ErrorResponse.class);
+            final var writeResponse = POST_productPackage(ChangePackageRequest.builder()
+                    .name(TEST_PRODUCT_NAME)
+                    .description(TEST_PRODUCT_DESCRIPTION)
+                    .productIds(List.of(SAMPLE_PRODUCT_ID_1))
+                    .build());
+            final var healthResponse = restTemplate.getForEntity("/actuator/health", String.class);
+
+            // Assert
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, readResponse.getStatusCode());
+            assertEquals("1", readResponse.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+            assertNotNull(readResponse.getBody().reason());
+            assertEquals(HttpStatus.CREATED, writeResponse.getStatusCode());
+            assertEquals(HttpStatus.OK, healthResponse.getStatusCode());
+            assertTrue(this.meterRegistry.get("concurrency_limit_rejected").tag("limit", "read").functionCounter().count() > rejectedBefore);
+            assertEquals(readLimit.limit(), this.meterRegistry.get("concurrency_limit").tag("limit", "read").gauge().value());
+        } finally {
+            for(int i = 0; i < acquired; i++) {
+                readLimit.release();
+            }
+        }
+    }
+
+    @Test
+    void concurrencyLimit_exportsHoldTheirOwnLimitUntilTheStreamCompletes() throws Exception {
+        // Arrange
+        provisionProductPackage(TEST_PRODUCT_NAME, TEST_PRODUCT_DESCRIPTION);
+        final var readLimit = this.concurrencyLimits.read();
+        final var exportLimit = this.concurrencyLimits.export();
+        int acquired = 0;
+        while(readLimit.tryAcquire()) {
+            acquired++;
+        }
+
+        try {
+            // Act
+            final var exportResponse = restTemplate.getForEntity("/packages/export", String.class);
+            // The slot is released as the async response completes, just after the body is sent.
+            final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while(exportLimit.inFlight() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            // Assert
+            assertEquals(HttpStatus.OK, exportResponse.getStatusCode());
+            assertEquals(1, exportResponse.getBody().lines().count());
+            assertEquals(0, exportLimit.inFlight());
+            assertEquals(acquired, readLimit.inFlight());
+        } finally {
+            for(int i = 0; i < acquired; i++) {
+                readLimit.release();
+            }
+        }
+    }
+
+    private ApiServiceClient productsApiClient(final HttpServer server, final ProductCatalogLayout layout) {
+        final var configuration = new ProductsApiConfiguration();
+        configuration.setProductsUrl(URI.create(String.format("http://localhost:%d/products", server.getAddress().getPort())));
+        configuration.setCatalogLayout(layout);
+        final var gatewayConfig = new GatewayConfig();
+        gatewayConfig.setReadTimeout(Duration.ofSeconds(2));
+        return new ApiServiceClient(
+                new UpstreamClients(HttpClient.newHttpClient(), new ObjectMapper(), gatewayConfig, new SimpleMeterRegistry()),
+                new ObjectMapper(),
+                configuration);
+    }
+
+    private long listPackagesStageCount(final String stage) {
+        final var timer = this.meterRegistry.find(RequestStages.METRIC)
+                .tags("endpoint", "list_packages", "page_size", "2-10", "currency", "GBP", "stage", stage)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
     private void generateEmptyPackages(final int count) {
         for(int i = 0; i < count; i++){
             final var request = ChangePackageRequest.builder()
@@ -979,6 +1851,49 @@ class ApiIntegrationTests {
     }
 
 
+    private ResponseEntity<ListPackageResponse> GET_productPackagesAfterCursor(final int pageSize, final String cursor){
+        return restTemplate.getForEntity(
+                "/packages?page_size={pageSize}&cursor={cursor}",
+                ListPackageResponse.class,
+                pageSize,
+                cursor);
+    }
+
+    private ResponseEntity<ListPackageResponse> GET_packagesContainingProduct(
+            final String productId,
+            final int pageSize,
+            final String cursor){
+        return restTemplate.getForEntity(
+                "/products/{productId}/packages?page_size={pageSize}&cursor={cursor}",
+                ListPackageResponse.class,
+                productId,
+                pageSize,
+                cursor);
+    }
+
+    private ResponseEntity<PackageResource> GET_productPackageIfNoneMatch(final long id, final String currency, final String etag){
+        final var headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        return restTemplate.exchange(
+                "/packages/{id}?currency={cur}", HttpMethod.GET, new HttpEntity<>(headers), PackageResource.class, id, currency);
+    }
+
+    private ResponseEntity<ListPackageResponse> GET_productPackagesIfNoneMatch(final String etag){
+        final var headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        return restTemplate.exchange(
+                "/packages?page_size=10&page_number=0", HttpMethod.GET, new HttpEntity<>(headers), ListPackageResponse.class);
+    }
+
+    private ResponseEntity<byte[]> GET_encodedIfNoneMatch(final String path, final MediaType accept, final String etag){
+        final var headers = new HttpHeaders();
+        headers.setAccept(List.of(accept));
+        if(etag != null) {
+            headers.setIfNoneMatch(etag);
+        }
+        return restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+    }
+
     private ResponseEntity<PackageResource> PUT_productPackage(final long id, final ChangePackageRequest request){
         return PUT_productPackage(Long.toString(id), request);
     }
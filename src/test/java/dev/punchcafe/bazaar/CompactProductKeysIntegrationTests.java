@@ -0,0 +1,141 @@
+package dev.punchcafe.bazaar;
+
+import dev.punchcafe.bazaar.currency.CurrencyRatesCache;
+import dev.punchcafe.bazaar.packages.PackageChange;
+import dev.punchcafe.bazaar.packages.PackageService;
+import dev.punchcafe.bazaar.products.Product;
+import dev.punchcafe.bazaar.products.ProductCatalog;
+import dev.punchcafe.bazaar.products.ProductsCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.DriverManager;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs against a database migrated with the compact-product-keys Liquibase context, where package
+ * products are stored by integer product key rather than by product ID.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:compact_product_keys;DB_CLOSE_DELAY=-1",
+        "spring.liquibase.contexts=default,compact-product-keys"
+})
+class CompactProductKeysIntegrationTests {
+
+    private final static String PRODUCT_ID_1 = "VqKb4tyj9V6i";
+    private final static String PRODUCT_ID_2 = "DXSQpv6XVeJm";
+    private final static String PRODUCT_ID_3 = "7dgX6XzU3Wds";
+
+    @MockBean private final ProductsCache productsCache;
+    @MockBean private final CurrencyRatesCache currencyRatesCache;
+    private final PackageService packageService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    CompactProductKeysIntegrationTests(
+            final ProductsCache productsCache,
+            final CurrencyRatesCache currencyRatesCache,
+            final PackageService packageService,
+            final JdbcTemplate jdbcTemplate) {
+        this.productsCache = productsCache;
+        this.currencyRatesCache = currencyRatesCache;
+        this.packageService = packageService;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @BeforeEach
+    public void clearDatabase() {
+        this.jdbcTemplate.update("DELETE FROM package_product_keys");
+        this.jdbcTemplate.update("DELETE FROM packages");
+        when(productsCache.getSnapshot()).thenReturn(ProductCatalog.of(Map.of(
+                PRODUCT_ID_1, new Product(PRODUCT_ID_1, "Shield", 1149),
+                PRODUCT_ID_2, new Product(PRODUCT_ID_2, "Helmet", 999),
+                PRODUCT_ID_3, new Product(PRODUCT_ID_3, "Sword", 899))));
+    }
+
+    @Test
+    void packageProducts_areWrittenByProductKeyAndReadBackByProductId() {
+        // Arrange
+        final var first = this.packageService.create("first", "description", List.of(PRODUCT_ID_1, PRODUCT_ID_2));
+        final var second = this.packageService.create("second", "description", List.of(PRODUCT_ID_2));
+
+        // Act
+        this.packageService.update(first.id(), "first", "updated", List.of(PRODUCT_ID_2, PRODUCT_ID_3));
+        this.packageService.bulkChange(List.of(
+                new PackageChange(second.id(), "second", "updated", List.of(PRODUCT_ID_1, PRODUCT_ID_3)),
+                new PackageChange(null, "third", "description", List.of(PRODUCT_ID_3))));
+        final var packages = this.packageService.packagesAfter(0, 10);
+
+        // Assert
+        assertEquals(3, packages.size());
+        assertEquals(Set.of(PRODUCT_ID_2, PRODUCT_ID_3), Set.copyOf(packages.get(0).productIds()));
+        assertEquals(Set.of(PRODUCT_ID_1, PRODUCT_ID_3), Set.copyOf(packages.get(1).productIds()));
+        assertEquals(List.of(PRODUCT_ID_3), packages.get(2).productIds());
+        assertEquals(Set.of(PRODUCT_ID_2, PRODUCT_ID_3), Set.copyOf(this.packageService.get(first.id()).orElseThrow().productIds()));
+        assertEquals(5, count("package_product_keys"));
+        // One key per distinct product, however many packages it's in.
+        assertEquals(3, count("product_keys"));
+        assertEquals(List.of(first.id(), second.id()),
+                this.packageService.packagesContaining(PRODUCT_ID_3, 0, 2).stream().map(pkg -> pkg.id()).toList());
+        assertEquals(List.of(second.id()),
+                this.packageService.packagesContaining(PRODUCT_ID_1, 0, 10).stream().map(pkg -> pkg.id()).toList());
+        // Product IDs are shared between packages, rather than copied into each.
+        assertSame(packages.get(0).productIds().stream().filter(PRODUCT_ID_3::equals).findFirst().orElseThrow(),
+                packages.get(2).productIds().get(0));
+    }
+
+    @Test
+    void deletePackage_removesItsProductKeysButKeepsTheDictionary() {
+        // Arrange
+        final var created = this.packageService.create("name", "description", List.of(PRODUCT_ID_1, PRODUCT_ID_2));
+
+        // Act
+        this.packageService.delete(created.id());
+
+        // Assert
+        assertTrue(this.packageService.get(created.id()).isEmpty());
+        assertEquals(0, count("package_product_keys"));
+        assertEquals(2, count("product_keys"));
+    }
+
+    @Test
+    void migration_backfillsExistingPackageProductsIntoProductKeys() throws Exception {
+        // Arrange
+        try(final var connection = DriverManager.getConnection("jdbc:h2:mem:backfill;DB_CLOSE_DELAY=-1", "sa", "sa")) {
+            LiquibaseMigrations.update(connection, "default");
+            try(final var statement = connection.createStatement()) {
+                statement.executeUpdate("INSERT INTO packages (id, name) VALUES (1, 'first'), (2, 'second')");
+                statement.executeUpdate(String.format(
+                        "INSERT INTO package_products (package_id, product_id) VALUES (1, '%s'), (1, '%s'), (2, '%s')",
+                        PRODUCT_ID_1, PRODUCT_ID_2, PRODUCT_ID_2));
+            }
+
+            // Act
+            LiquibaseMigrations.update(connection, "default", "compact-product-keys");
+
+            // Assert
+            final var jdbc = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            assertEquals(2, jdbc.queryForObject("SELECT COUNT(*) FROM product_keys", Integer.class));
+            assertEquals(3, jdbc.queryForObject("SELECT COUNT(*) FROM package_product_keys", Integer.class));
+            assertThat(jdbc.queryForList("SELECT product_id FROM package_products WHERE package_id = 1", String.class))
+                    .containsExactlyInAnyOrder(PRODUCT_ID_1, PRODUCT_ID_2);
+            assertThat(jdbc.queryForList("SELECT product_id FROM package_products WHERE package_id = 2", String.class))
+                    .containsExactly(PRODUCT_ID_2);
+        }
+    }
+
+    private int count(final String table) {
+        return this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,35 @@
+package dev.punchcafe.bazaar;
+
+import liquibase.Scope;
+import liquibase.command.CommandScope;
+import liquibase.command.core.UpdateCommandStep;
+import liquibase.command.core.helpers.DbUrlConnectionArgumentsCommandStep;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+
+import java.sql.Connection;
+
+/**
+ * Applies the application's changelog to databases which Spring doesn't migrate itself.
+ */
+final class LiquibaseMigrations {
+
+    private static final String CHANGELOG = "db/changelog-index.xml";
+
+    private LiquibaseMigrations() {}
+
+    /**
+     * @param connection the database to migrate, which is left open
+     * @param contexts the contexts of the changesets to apply
+     */
+    static void update(final Connection connection, final String... contexts) throws Exception {
+        final var database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection));
+        Scope.child(Scope.Attr.resourceAccessor, new ClassLoaderResourceAccessor(), () ->
+                new CommandScope(UpdateCommandStep.COMMAND_NAME)
+                        .addArgumentValue(DbUrlConnectionArgumentsCommandStep.DATABASE_ARG, database)
+                        .addArgumentValue(UpdateCommandStep.CHANGELOG_FILE_ARG, CHANGELOG)
+                        .addArgumentValue(UpdateCommandStep.CONTEXTS_ARG, String.join(",", contexts))
+                        .execute());
+    }
+}
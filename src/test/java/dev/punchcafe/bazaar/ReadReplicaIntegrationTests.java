@@ -0,0 +1,161 @@
+package dev.punchcafe.bazaar;
+
+import dev.punchcafe.bazaar.api.schema.ChangePackageRequest;
+import dev.punchcafe.bazaar.api.schema.ListPackageResponse;
+import dev.punchcafe.bazaar.api.schema.PackageResource;
+import dev.punchcafe.bazaar.currency.CurrencyApiResponse;
+import dev.punchcafe.bazaar.currency.CurrencyRates;
+import dev.punchcafe.bazaar.currency.CurrencyRatesCache;
+import dev.punchcafe.bazaar.products.Product;
+import dev.punchcafe.bazaar.products.ProductCatalog;
+import dev.punchcafe.bazaar.products.ProductsCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.DriverManager;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs against two H2 databases, a primary and a read replica which is only ever written to by the
+ * test itself, standing in for replication.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.datasource.url=" + ReadReplicaIntegrationTests.PRIMARY_URL,
+                "replica-datasource.jdbc-url=" + ReadReplicaIntegrationTests.REPLICA_URL,
+                "replica-datasource.username=sa",
+                "replica-datasource.password=sa"
+        })
+class ReadReplicaIntegrationTests {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+    private final static String PRODUCT_ID_1 = "VqKb4tyj9V6i";
+    private final static String PRODUCT_ID_2 = "DXSQpv6XVeJm";
+
+    @MockBean private final ProductsCache productsCache;
+    @MockBean private final CurrencyRatesCache currencyRatesCache;
+    private final TestRestTemplate restTemplate;
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+
+    @Autowired
+    ReadReplicaIntegrationTests(
+            final ProductsCache productsCache,
+            final CurrencyRatesCache currencyRatesCache,
+            final TestRestTemplate restTemplate) {
+        this.productsCache = productsCache;
+        this.currencyRatesCache = currencyRatesCache;
+        this.restTemplate = restTemplate;
+        this.primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", "sa"));
+        this.replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", "sa"));
+    }
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        // Liquibase only migrates the primary, so give the replica the same schema.
+        try(final var connection = DriverManager.getConnection(REPLICA_URL, "sa", "sa")) {
+            LiquibaseMigrations.update(connection, "default");
+        }
+        for(final var database : List.of(this.primary, this.replica)) {
+            database.update("DELETE FROM package_products");
+            database.update("DELETE FROM packages");
+        }
+        when(productsCache.getSnapshot()).thenReturn(ProductCatalog.of(Map.of(
+                PRODUCT_ID_1, new Product(PRODUCT_ID_1, "Shield", 1149),
+                PRODUCT_ID_2, new Product(PRODUCT_ID_2, "Helmet", 999))));
+        when(currencyRatesCache.getRates()).thenReturn(
+                CurrencyRates.of(new CurrencyApiResponse("USD", "2025-12-18", Map.of("GBP", 0.74631))));
+    }
+
+    @Test
+    void reads_goToTheReplicaWhileWritesAndTheirResponsesGoToThePrimary() {
+        // Arrange
+        final var created = this.restTemplate.postForEntity("/packages", ChangePackageRequest.builder()
+                .name("name")
+                .description("description")
+                .productIds(List.of(PRODUCT_ID_1))
+                .build(), PackageResource.class);
+        assertEquals(HttpStatus.CREATED, created.getStatusCode());
+        final var id = created.getBody().id();
+
+        // Act
+        final var updated = this.restTemplate.exchange("/packages/{id}", HttpMethod.PUT, new HttpEntity<>(
+                ChangePackageRequest.builder()
+                        .name("updated")
+                        .description("description")
+                        .productIds(List.of(PRODUCT_ID_1, PRODUCT_ID_2))
+                        .build()), PackageResource.class, id);
+        final var fetched = this.restTemplate.getForEntity("/packages/{id}", PackageResource.class, id);
+        final var listedBeforeReplication = this.restTemplate.getForEntity("/packages", ListPackageResponse.class);
+        replicate();
+        final var listedAfterReplication = this.restTemplate.getForEntity("/packages", ListPackageResponse.class);
+
+        // Assert
+        assertEquals(1, this.primary.queryForObject("SELECT COUNT(*) FROM packages", Integer.class));
+        // The write's response, and later reads of the same package, see the write before the replica has it.
+        assertEquals(HttpStatus.OK, updated.getStatusCode());
+        assertEquals("updated", updated.getBody().name());
+        assertEquals(1149 + 999, updated.getBody().totalPrice());
+        assertEquals(HttpStatus.OK, fetched.getStatusCode());
+        assertEquals("updated", fetched.getBody().name());
+        // Listing reads from the replica, so only finds the package once it's been replicated.
+        assertEquals(List.of(), listedBeforeReplication.getBody().packages());
+        assertEquals(List.of(id), listedAfterReplication.getBody().packages().stream().map(PackageResource::id).toList());
+        assertEquals("updated", listedAfterReplication.getBody().packages().get(0).name());
+    }
+
+    @Test
+    void getPackage_doesNotFindADeletedPackageWhichTheReplicaStillHas() {
+        // Arrange
+        final var created = this.restTemplate.postForEntity("/packages", ChangePackageRequest.builder()
+                .name("name")
+                .description("description")
+                .productIds(List.of(PRODUCT_ID_1))
+                .build(), PackageResource.class);
+        assertEquals(HttpStatus.CREATED, created.getStatusCode());
+        final var id = created.getBody().id();
+        replicate();
+
+        // Act
+        final var fetchedBeforeDelete = this.restTemplate.getForEntity("/packages/{id}", PackageResource.class, id);
+        final var deleted = this.restTemplate.exchange("/packages/{id}", HttpMethod.DELETE, null, Void.class, id);
+        final var fetchedAfterDelete = this.restTemplate.getForEntity("/packages/{id}", String.class, id);
+
+        // Assert
+        assertEquals(HttpStatus.OK, fetchedBeforeDelete.getStatusCode());
+        assertEquals(HttpStatus.NO_CONTENT, deleted.getStatusCode());
+        assertEquals(0, this.primary.queryForObject("SELECT COUNT(*) FROM packages", Integer.class));
+        // The replica hasn't seen the delete yet, but the package cache remembers it.
+        assertEquals(1, this.replica.queryForObject("SELECT COUNT(*) FROM packages", Integer.class));
+        assertEquals(HttpStatus.NOT_FOUND, fetchedAfterDelete.getStatusCode());
+    }
+
+    private void replicate() {
+        this.primary.query("SELECT id, name, description, version FROM packages", row -> {
+            this.replica.update(
+                    "INSERT INTO packages (id, name, description, version) VALUES (?, ?, ?, ?)",
+                    row.getLong("id"), row.getString("name"), row.getString("description"), row.getLong("version"));
+        });
+        this.primary.query("SELECT package_id, product_id FROM package_products", row -> {
+            this.replica.update(
+                    "INSERT INTO package_products (package_id, product_id) VALUES (?, ?)",
+                    row.getLong("package_id"), row.getString("product_id"));
+        });
+    }
+}
@@ -0,0 +1,43 @@
+package dev.punchcafe.bazaar.currency;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CurrencyRatesTests {
+
+    @Test
+    void of_buildsEachRateOnceAndIgnoreLaterChangesToTheResponse() {
+        // Arrange
+        final var publishedRates = new HashMap<String, Double>(Map.of("GBP", 0.74631, "JPY", 155.77));
+        publishedRates.put("eur", 0.8512);
+        publishedRates.put("XXX", null);
+        final var loadedAt = Instant.now();
+
+        // Act
+        final var rates = CurrencyRates.of(new CurrencyApiResponse("USD", "2025-12-18", publishedRates), 7, loadedAt);
+        publishedRates.put("GBP", 1.0);
+        publishedRates.put("CHF", 0.7953);
+
+        // Assert
+        // Every lookup of a currency, in whatever case, shares the one rate.
+        final var gbp = rates.rate("GBP");
+        assertEquals("GBP", gbp.code());
+        assertEquals(0.74631, gbp.multiplier());
+        assertSame(gbp, rates.rate("gbp"));
+        assertSame(gbp, rates.rate("Gbp"));
+        assertEquals("EUR", rates.rate("EUR").code());
+        assertSame(rates.rate("EUR"), rates.rate("eur"));
+        assertEquals(1.0, rates.rate("usd").multiplier());
+        // Rates without a multiplier are dropped, and the table doesn't see later changes to the response.
+        assertNull(rates.rate("XXX"));
+        assertNull(rates.rate("CHF"));
+        assertEquals("2025-12-18", rates.date());
+        assertEquals(7, rates.version());
+        assertEquals(loadedAt, rates.loadedAt());
+    }
+}
@@ -0,0 +1,51 @@
+package dev.punchcafe.bazaar.gateway;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTests {
+
+    @Test
+    void run_sharesTheInFlightCallUntilItCompletesOrReachesTheDeadline() throws Exception {
+        // Arrange
+        final var singleFlight = new SingleFlight<String>(Duration.ofMillis(200));
+        final var calls = new AtomicInteger();
+        final var stuck = new CompletableFuture<String>();
+        final var completing = new CompletableFuture<String>();
+
+        // Act
+        final var first = singleFlight.run(() -> {
+            calls.incrementAndGet();
+            return completing;
+        });
+        final var joined = singleFlight.run(() -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("not called");
+        });
+        completing.complete("first");
+        final var stuckCall = singleFlight.run(() -> {
+            calls.incrementAndGet();
+            return stuck;
+        });
+        final var abandoned = assertThrows(ExecutionException.class, () -> stuckCall.get(5, TimeUnit.SECONDS));
+        final var afterDeadline = singleFlight.run(() -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("fresh");
+        });
+        stuck.complete("late");
+
+        // Assert
+        assertSame(first, joined);
+        assertEquals("first", first.get());
+        assertInstanceOf(UpstreamException.class, abandoned.getCause());
+        assertEquals("fresh", afterDeadline.get());
+        assertEquals(3, calls.get());
+    }
+}
@@ -0,0 +1,72 @@
+package dev.punchcafe.bazaar.gateway;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import dev.punchcafe.bazaar.config.GatewayConfig;
+import dev.punchcafe.bazaar.currency.CurrencyApiResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamClientTests {
+
+    @Test
+    void getJson_failsAtTheReadTimeoutIfTheBodyStalls() throws Exception {
+        // Arrange
+        final var stalled = new CountDownLatch(1);
+        final var server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/rates", exchange -> {
+            // Send the headers and the start of the body, then nothing more.
+            exchange.sendResponseHeaders(200, 0);
+            exchange.getResponseBody().write("{\"base\": \"USD\", ".getBytes(StandardCharsets.UTF_8));
+            exchange.getResponseBody().flush();
+            try {
+                stalled.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.start();
+        final var gatewayConfig = new GatewayConfig();
+        gatewayConfig.setReadTimeout(Duration.ofMillis(500));
+        final var upstreamMetrics = new SimpleMeterRegistry();
+        final var client = new UpstreamClients(HttpClient.newHttpClient(), new ObjectMapper(), gatewayConfig, upstreamMetrics)
+                .forUpstream("stalled");
+        final var uri = URI.create(String.format("http://localhost:%d/rates", server.getAddress().getPort()));
+
+        try {
+            // Act
+            final var startedAt = System.nanoTime();
+            final var failure = assertThrows(
+                    ExecutionException.class,
+                    () -> client.getJson(uri, Map.of(), CurrencyApiResponse.class).get(5, TimeUnit.SECONDS));
+            final var elapsed = Duration.ofNanos(System.nanoTime() - startedAt);
+
+            // Assert
+            assertInstanceOf(UpstreamException.class, failure.getCause());
+            assertTrue(elapsed.compareTo(Duration.ofMillis(500)) >= 0);
+            assertTrue(elapsed.compareTo(Duration.ofSeconds(5)) < 0);
+            // Timed once the body has been given up on, not when the headers arrived.
+            final var timer = upstreamMetrics.find("upstream_requests").tags("upstream", "stalled").timer();
+            assertEquals("timeout", timer.getId().getTag("outcome"));
+            assertTrue(timer.totalTime(TimeUnit.MILLISECONDS) >= 500);
+            assertEquals(1, upstreamMetrics.counter("upstream_errors", "upstream", "stalled", "cause", "timeout").count());
+        } finally {
+            stalled.countDown();
+            server.stop(0);
+        }
+    }
+}
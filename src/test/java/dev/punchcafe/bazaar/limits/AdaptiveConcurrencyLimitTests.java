@@ -0,0 +1,49 @@
+package dev.punchcafe.bazaar.limits;
+
+import dev.punchcafe.bazaar.config.ConcurrencyLimitConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimitTests {
+
+    @Test
+    void release_backsOffOnSlowRequestsAndGrowsWhileInUse() {
+        // Arrange
+        final var configuration = new ConcurrencyLimitConfiguration.Limit();
+        configuration.setInitialLimit(10);
+        configuration.setMinLimit(5);
+        configuration.setMaxLimit(11);
+        configuration.setLatencyThreshold(Duration.ofMillis(100));
+        final var limit = new AdaptiveConcurrencyLimit(configuration);
+
+        // Act
+        int admitted = 0;
+        while(limit.tryAcquire()) {
+            admitted++;
+        }
+        // Each fast request completing with the limit in use grows it, up to the max.
+        limit.release(10, TimeUnit.MILLISECONDS, false);
+        limit.release(10, TimeUnit.MILLISECONDS, false);
+        final var limitAfterFastRequests = limit.limit();
+        // Each slow or failed request backs it off, down to the min.
+        for(int i = 0; i < 4; i++) {
+            limit.release(200, TimeUnit.MILLISECONDS, false);
+        }
+        limit.release(10, TimeUnit.MILLISECONDS, true);
+        final var limitAfterSlowRequests = limit.limit();
+        for(int i = 0; i < 20; i++) {
+            limit.tryAcquire();
+            limit.release(200, TimeUnit.MILLISECONDS, false);
+        }
+
+        // Assert
+        assertEquals(10, admitted);
+        assertEquals(11, limitAfterFastRequests);
+        assertEquals(6, limitAfterSlowRequests);
+        assertEquals(5, limit.limit());
+    }
+}
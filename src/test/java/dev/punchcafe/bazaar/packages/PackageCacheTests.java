@@ -0,0 +1,87 @@
+package dev.punchcafe.bazaar.packages;
+
+import dev.punchcafe.bazaar.config.PackageCacheConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackageCacheTests {
+
+    private static final long PACKAGE_ID = 7;
+
+    @Test
+    void put_keepsTheNewerVersionWhenConcurrentUpdatesPutOutOfOrder() throws Exception {
+        // Arrange
+        final var cache = new PackageCache(new PackageCacheConfiguration(), new SimpleMeterRegistry());
+        final var versions = new ArrayList<Package>();
+        for(int version = 1; version <= 64; version++) {
+            versions.add(version(version));
+        }
+        // Each writer has hydrated its own version, and they all put at once, in no particular order.
+        Collections.shuffle(versions);
+        final var executor = Executors.newFixedThreadPool(8);
+        final var start = new CountDownLatch(1);
+
+        try {
+            // Act
+            final var staleWriter = version(1);
+            cache.put(version(2));
+            cache.put(staleWriter);
+            final var afterStalePut = cache.get(PACKAGE_ID, id -> Optional.empty());
+
+            final var puts = new ArrayList<Future<?>>();
+            for(final var pkg : versions) {
+                puts.add(executor.submit(() -> {
+                    start.await();
+                    cache.put(pkg);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for(final var put : puts) {
+                put.get();
+            }
+
+            // Assert
+            assertEquals(Optional.of(version(2)), afterStalePut);
+            assertEquals(Optional.of(version(64)), cache.get(PACKAGE_ID, id -> Optional.empty()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void put_neverBringsBackAPackageDeletedAfterItWasRead() {
+        // Arrange
+        final var cache = new PackageCache(new PackageCacheConfiguration(), new SimpleMeterRegistry());
+        cache.put(version(1));
+        // An update hydrates the package, then a delete commits before the update puts what it read.
+        final var hydratedByUpdate = version(2);
+
+        // Act
+        cache.delete(PACKAGE_ID);
+        cache.put(hydratedByUpdate);
+
+        // Assert
+        assertEquals(Optional.empty(), cache.get(PACKAGE_ID, id -> Optional.of(version(3))));
+    }
+
+    private static Package version(final long version) {
+        return Package.builder()
+                .id(PACKAGE_ID)
+                .version(version)
+                .name("Package")
+                .description("Version " + version)
+                .productIds(List.of())
+                .build();
+    }
+}
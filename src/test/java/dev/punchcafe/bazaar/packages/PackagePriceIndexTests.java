@@ -0,0 +1,125 @@
+package dev.punchcafe.bazaar.packages;
+
+import dev.punchcafe.bazaar.config.GatewayConfig;
+import dev.punchcafe.bazaar.config.PackageCacheConfiguration;
+import dev.punchcafe.bazaar.products.Product;
+import dev.punchcafe.bazaar.products.ProductCatalog;
+import dev.punchcafe.bazaar.products.ProductCatalogChanges;
+import dev.punchcafe.bazaar.products.ProductCatalogRefreshedEvent;
+import dev.punchcafe.bazaar.products.ProductService;
+import dev.punchcafe.bazaar.products.ProductsCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackagePriceIndexTests {
+
+    @Test
+    void onCatalogRefreshed_repricesOnlyThePackagesContainingAChangedProduct() {
+        // Arrange
+        final var previous = ProductCatalog.of(List.of(product("a", 100), product("b", 200), product("c", 300)), 1, Instant.EPOCH);
+        final var snapshot = new AtomicReference<>(previous);
+        final var index = new PackagePriceIndex(
+                new ProductService(stubProductsCache(snapshot)),
+                new PackageCacheConfiguration(),
+                new SimpleMeterRegistry());
+        final var withA = pkg(1, "a", "c");
+        final var withoutA = pkg(2, "b", "c");
+        index.put(withA);
+        index.put(withoutA);
+        // Both products change, but the event only reports a, so a package re-summed without being
+        // found through the index would pick up the new price of b.
+        final var current = ProductCatalog.of(List.of(product("a", 150), product("b", 250), product("c", 300)), 2, Instant.EPOCH);
+        snapshot.set(current);
+
+        // Act
+        index.onCatalogRefreshed(new ProductCatalogRefreshedEvent(
+                previous,
+                current,
+                new ProductCatalogChanges(Set.of(), Set.of(), Set.of("a"))));
+
+        // Assert
+        assertEquals(450, index.usdTotal(withA));
+        assertEquals(500, index.usdTotal(withoutA));
+    }
+
+    @Test
+    void remove_stopsADeletedPackageBeingRepriced() {
+        // Arrange
+        final var previous = ProductCatalog.of(List.of(product("a", 100)), 1, Instant.EPOCH);
+        final var snapshot = new AtomicReference<>(previous);
+        final var index = new PackagePriceIndex(
+                new ProductService(stubProductsCache(snapshot)),
+                new PackageCacheConfiguration(),
+                new SimpleMeterRegistry());
+        final var deleted = pkg(1, "a");
+        index.put(deleted);
+        final var current = ProductCatalog.of(List.of(product("a", 150)), 2, Instant.EPOCH);
+        snapshot.set(current);
+
+        // Act
+        index.remove(deleted.id());
+        index.onCatalogRefreshed(new ProductCatalogRefreshedEvent(
+                previous,
+                current,
+                new ProductCatalogChanges(Set.of(), Set.of(), Set.of("a"))));
+
+        // Assert
+        assertEquals(150, index.usdTotal(deleted, current));
+    }
+
+    @Test
+    void usdTotal_repricesEveryPackageAfterAMissedRefresh() {
+        // Arrange
+        final var first = ProductCatalog.of(List.of(product("a", 100), product("b", 200)), 1, Instant.EPOCH);
+        final var snapshot = new AtomicReference<>(first);
+        final var index = new PackagePriceIndex(
+                new ProductService(stubProductsCache(snapshot)),
+                new PackageCacheConfiguration(),
+                new SimpleMeterRegistry());
+        final var withB = pkg(1, "b");
+        index.put(withB);
+        final var second = ProductCatalog.of(List.of(product("a", 100), product("b", 250)), 2, Instant.EPOCH);
+        final var third = ProductCatalog.of(List.of(product("a", 150), product("b", 250)), 3, Instant.EPOCH);
+        snapshot.set(third);
+
+        // Act
+        // The refresh to the second catalog was never applied, so b's change isn't in this event.
+        index.onCatalogRefreshed(new ProductCatalogRefreshedEvent(
+                second,
+                third,
+                new ProductCatalogChanges(Set.of(), Set.of(), Set.of("a"))));
+
+        // Assert
+        assertEquals(250, index.usdTotal(withB));
+    }
+
+    private static ProductsCache stubProductsCache(final AtomicReference<ProductCatalog> snapshot) {
+        return new ProductsCache(null, new GatewayConfig(), event -> {}, new SimpleMeterRegistry()) {
+            @Override
+            public ProductCatalog getSnapshot() {
+                return snapshot.get();
+            }
+        };
+    }
+
+    private static Product product(final String id, final int usdPrice) {
+        return new Product(id, "Product " + id, usdPrice);
+    }
+
+    private static Package pkg(final long id, final String... productIds) {
+        return Package.builder()
+                .id(id)
+                .version(1)
+                .name("Package " + id)
+                .description("Package")
+                .productIds(List.of(productIds))
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package dev.punchcafe.bazaar.packages.repository;
+
+import dev.punchcafe.bazaar.packages.model.PackageOrm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs each operation in its own transaction, as the package service does, rather than within one
+ * rolled back after each test, so reads see what was committed rather than the persistence context.
+ */
+@DataJpaTest
+@Import({AtomicOperator.class, PackageProductWriter.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AtomicOperatorTests {
+
+    private final AtomicOperator atomicOperator;
+    private final PackageRepository packageRepository;
+    private final PackageProductRepository packageProductRepository;
+
+    @Autowired
+    AtomicOperatorTests(
+            final AtomicOperator atomicOperator,
+            final PackageRepository packageRepository,
+            final PackageProductRepository packageProductRepository) {
+        this.atomicOperator = atomicOperator;
+        this.packageRepository = packageRepository;
+        this.packageProductRepository = packageProductRepository;
+    }
+
+    @BeforeEach
+    public void clearDatabase() {
+        this.packageProductRepository.deleteAll();
+        this.packageRepository.deleteAll();
+    }
+
+    @Test
+    void updatePackageAndProducts_appliesALargeMembershipChangeAndBumpsTheVersionOnce() {
+        // Arrange
+        final var productIds = new ArrayList<String>();
+        for(int i = 0; i < 1_000; i++) {
+            productIds.add(String.format("product%05d", i));
+        }
+        final var created = this.atomicOperator.createPackageAndProducts(PackageOrm.builder()
+                .name("Test Name")
+                .description("Test Description")
+                .build(), productIds);
+        final var kept = productIds.subList(0, 500);
+        final var deleted = productIds.subList(500, 1_000);
+        final var added = new ArrayList<String>();
+        for(int i = 1_000; i < 1_500; i++) {
+            added.add(String.format("product%05d", i));
+        }
+
+        // Act
+        this.atomicOperator.updatePackageAndProducts(
+                created.toBuilder().name("Updated Test Name").description("Updated Test Description").build(),
+                added,
+                deleted);
+
+        // Assert
+        final var updated = this.packageRepository.findById(created.getId()).orElseThrow();
+        assertEquals("Updated Test Name", updated.getName());
+        assertEquals("Updated Test Description", updated.getDescription());
+        assertEquals(created.getVersion() + 1, updated.getVersion());
+        final var expectedProductIds = new ArrayList<>(kept);
+        expectedProductIds.addAll(added);
+        assertThat(this.packageProductRepository.findAllById_PackageId(created.getId()).stream()
+                .map(packageProduct -> packageProduct.getId().getProductId())
+                .toList())
+                .containsExactlyInAnyOrderElementsOf(expectedProductIds);
+    }
+}
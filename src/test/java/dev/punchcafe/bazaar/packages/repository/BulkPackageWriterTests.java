@@ -0,0 +1,91 @@
+package dev.punchcafe.bazaar.packages.repository;
+
+import dev.punchcafe.bazaar.packages.model.PackageOrm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs each write in its own transaction, as the package service does, rather than within one
+ * rolled back after each test.
+ */
+@DataJpaTest
+@Import({BulkPackageWriter.class, PackageProductWriter.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BulkPackageWriterTests {
+
+    private final static String PRODUCT_ID_1 = "VqKb4tyj9V6i";
+    private final static String PRODUCT_ID_2 = "DXSQpv6XVeJm";
+
+    private final BulkPackageWriter bulkPackageWriter;
+    private final PackageRepository packageRepository;
+    private final PackageProductRepository packageProductRepository;
+
+    @Autowired
+    BulkPackageWriterTests(
+            final BulkPackageWriter bulkPackageWriter,
+            final PackageRepository packageRepository,
+            final PackageProductRepository packageProductRepository) {
+        this.bulkPackageWriter = bulkPackageWriter;
+        this.packageRepository = packageRepository;
+        this.packageProductRepository = packageProductRepository;
+    }
+
+    @BeforeEach
+    public void clearDatabase() {
+        this.packageProductRepository.deleteAll();
+        this.packageRepository.deleteAll();
+    }
+
+    @Test
+    void writeAll_reportsUpdatesOfPackagesDeletedSinceTheyWereValidatedAsMissing() {
+        // Arrange
+        final var deletedPackage = provisionPackage();
+        final var keptPackage = provisionPackage();
+        // Deleted by another request after the bulk request checked it existed.
+        this.packageProductRepository.deleteAll(this.packageProductRepository.findAllById_PackageId(deletedPackage.getId()));
+        this.packageRepository.deleteById(deletedPackage.getId());
+        final var updates = List.of(
+                new PackageWrite(PackageOrm.builder()
+                        .id(deletedPackage.getId())
+                        .name("Updated Test Name")
+                        .description("Updated Test Description")
+                        .build(), List.of(PRODUCT_ID_1)),
+                new PackageWrite(PackageOrm.builder()
+                        .id(keptPackage.getId())
+                        .name("Updated Test Name")
+                        .description("Updated Test Description")
+                        .build(), List.of(PRODUCT_ID_2)));
+
+        // Act
+        final var written = this.bulkPackageWriter.writeAll(List.of(), updates);
+
+        // Assert
+        assertEquals(Set.of(deletedPackage.getId()), written.missingIds());
+        assertFalse(this.packageRepository.existsById(deletedPackage.getId()));
+        assertEquals(List.of(), this.packageProductRepository.findAllById_PackageIdIn(List.of(deletedPackage.getId())));
+        assertEquals(1, updates.get(1).entity().getVersion());
+        assertEquals("Updated Test Name", this.packageRepository.findById(keptPackage.getId()).orElseThrow().getName());
+        assertEquals(
+                List.of(PRODUCT_ID_2),
+                this.packageProductRepository.findAllById_PackageId(keptPackage.getId()).stream()
+                        .map(packageProduct -> packageProduct.getId().getProductId())
+                        .toList());
+    }
+
+    private PackageOrm provisionPackage() {
+        return this.packageRepository.save(PackageOrm.builder()
+                .name("Test Name")
+                .description("Test Description")
+                .build());
+    }
+}
@@ -0,0 +1,151 @@
+package dev.punchcafe.bazaar.products;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactProductMapTests {
+
+    private static final String ID_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+
+    @Test
+    void compactProductMap_behavesLikeAHashMapOfTheSameProducts() {
+        // Arrange
+        // Enough products that lookups have to probe past colliding slots.
+        final var random = new Random(42);
+        final var expected = new HashMap<String, Product>();
+        final var builder = CompactProductMap.builder(16);
+        for(int i = 0; i < 5_000; i++) {
+            final var product = new Product(randomId(random), "Product " + i, random.nextInt(10_000));
+            expected.put(product.id(), product);
+            builder.add(product.id(), product.name(), product.usdPrice());
+        }
+        final var absentIds = new HashSet<String>();
+        while(absentIds.size() < 1_000) {
+            final var id = randomId(random);
+            if(!expected.containsKey(id)) {
+                absentIds.add(id);
+            }
+        }
+
+        // Act
+        final var map = builder.build();
+
+        // Assert
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, map);
+        final var iterated = new HashMap<String, Product>();
+        map.forEach(iterated::put);
+        assertEquals(expected, iterated);
+        for(final var product : expected.values()) {
+            assertEquals(product, map.get(product.id()));
+            assertEquals(product.usdPrice(), map.usdPrice(product.id()));
+            assertTrue(map.containsProduct(product.id(), product.name(), product.usdPrice()));
+            assertFalse(map.containsProduct(product.id(), product.name(), product.usdPrice() + 1));
+        }
+        for(final var id : absentIds) {
+            assertFalse(map.containsKey(id));
+            assertNull(map.get(id));
+            assertNull(map.usdPrice(id));
+        }
+    }
+
+    @Test
+    void compactProductMap_keepsTheLastOfDuplicateIds() {
+        // Arrange
+        final var builder = CompactProductMap.builder(4)
+                .add("VqKb4tyj9V6i", "Shield", 1149)
+                .add("not-packable", "Helmet", 999)
+                .add("VqKb4tyj9V6i", "Better Shield", 1249)
+                .add("not-packable", "Better Helmet", 1099);
+
+        // Act
+        final var map = builder.build();
+
+        // Assert
+        assertEquals(2, map.size());
+        assertEquals(2, map.entrySet().size());
+        assertEquals(new Product("VqKb4tyj9V6i", "Better Shield", 1249), map.get("VqKb4tyj9V6i"));
+        assertEquals(new Product("not-packable", "Better Helmet", 1099), map.get("not-packable"));
+        assertFalse(map.containsProduct("VqKb4tyj9V6i", "Shield", 1149));
+        assertEquals(Map.of(
+                "VqKb4tyj9V6i", new Product("VqKb4tyj9V6i", "Better Shield", 1249),
+                "not-packable", new Product("not-packable", "Better Helmet", 1099)), map);
+    }
+
+    @Test
+    void compactProductMap_keepsIdsWhichCantBePackedAlongsideThoseWhichCan() {
+        // Arrange
+        final var ids = new String[] {
+                "VqKb4tyj9V6i",     // packable
+                "VqKb4tyj9V6",      // too short
+                "VqKb4tyj9V6iX",    // too long
+                "VqKb4tyj9V-i",     // outside the alphabet
+                "VqKb4tyj9V6é",     // non-ASCII
+                ""
+        };
+        final var expected = new HashMap<String, Product>();
+        final var builder = CompactProductMap.builder(ids.length);
+        for(int i = 0; i < ids.length; i++) {
+            expected.put(ids[i], new Product(ids[i], "Product " + i, i));
+            builder.add(ids[i], "Product " + i, i);
+        }
+
+        // Act
+        final var map = builder.build();
+
+        // Assert
+        assertEquals(expected, map);
+        assertEquals(ids.length, map.size());
+        for(int i = 0; i < ids.length; i++) {
+            assertEquals(i, map.usdPrice(ids[i]));
+            assertTrue(map.containsProduct(ids[i], "Product " + i, i));
+        }
+        assertNull(map.get("VqKb4tyj9V6j"));
+        assertNull(map.get(42L));
+        assertFalse(map.containsKey(null));
+    }
+
+    @Test
+    void compactProductMap_keepsNullAndNonAsciiNames() {
+        // Arrange
+        final var builder = CompactProductMap.builder(4)
+                .add("AAAAAAAAAAAA", null, 100)
+                .add("BBBBBBBBBBBB", "Épée", 200)
+                .add("CCCCCCCCCCCC", "盾", 300)
+                .add("DDDDDDDDDDDD", "Axe", 400)
+                .add("not-packable", null, 500);
+
+        // Act
+        final var map = builder.build();
+
+        // Assert
+        assertNull(map.get("AAAAAAAAAAAA").name());
+        assertEquals("Épée", map.get("BBBBBBBBBBBB").name());
+        assertEquals("盾", map.get("CCCCCCCCCCCC").name());
+        assertNull(map.get("not-packable").name());
+        assertTrue(map.containsProduct("AAAAAAAAAAAA", null, 100));
+        assertFalse(map.containsProduct("AAAAAAAAAAAA", "", 100));
+        assertFalse(map.containsProduct("DDDDDDDDDDDD", null, 400));
+        assertTrue(map.containsProduct("not-packable", null, 500));
+        assertTrue(map.containsProduct("BBBBBBBBBBBB", "Épée", 200));
+        // Same number of characters, but not the same name.
+        assertFalse(map.containsProduct("BBBBBBBBBBBB", "Epee", 200));
+        assertFalse(map.containsProduct("DDDDDDDDDDDD", "Axé", 400));
+        assertTrue(map.containsProduct("CCCCCCCCCCCC", "盾", 300));
+        assertFalse(map.containsProduct("CCCCCCCCCCCC", "S", 300));
+    }
+
+    private static String randomId(final Random random) {
+        final var id = new char[12];
+        for(int i = 0; i < id.length; i++) {
+            id[i] = ID_ALPHABET.charAt(random.nextInt(ID_ALPHABET.length()));
+        }
+        return new String(id);
+    }
+}
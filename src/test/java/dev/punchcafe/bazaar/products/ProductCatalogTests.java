@@ -0,0 +1,90 @@
+package dev.punchcafe.bazaar.products;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class ProductCatalogTests {
+
+    @Test
+    void lookupAll_reportsTheFoundProductsAndTheMissingIdsInEitherLayout() {
+        for(final var layout : ProductCatalogLayout.values()) {
+            // Arrange
+            final var catalog = ProductCatalog.builder(null, layout)
+                    .product("a", "Product a", 100)
+                    .product("b", "Product b", 200)
+                    .build(Instant.EPOCH);
+
+            // Act
+            final var lookup = catalog.lookupAll(Arrays.asList("a", "b", "x", null, "a"));
+
+            // Assert
+            assertEquals(
+                    Map.of("a", new Product("a", "Product a", 100), "b", new Product("b", "Product b", 200)),
+                    lookup.found(),
+                    layout.name());
+            assertEquals(new HashSet<>(Arrays.asList("x", null)), lookup.missing(), layout.name());
+            assertEquals(Optional.of(new Product("b", "Product b", 200)), lookup.get("b"), layout.name());
+            assertFalse(lookup.allFound(), layout.name());
+            assertFalse(catalog.containsAll(Arrays.asList("a", "x")), layout.name());
+            assertTrue(catalog.lookupAll(Set.of("a", "b")).allFound(), layout.name());
+            assertTrue(catalog.containsAll(Set.of("a", "b")), layout.name());
+        }
+    }
+
+    @Test
+    void builder_compactLayoutHoldsTheSameProductsInAFractionOfTheMemory() {
+        // Arrange
+        final var random = new Random(42);
+        final var alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+        final var products = new ArrayList<Product>();
+        for(int i = 0; i < 100_000; i++) {
+            final var id = new StringBuilder(12);
+            for(int c = 0; c < 12; c++) {
+                id.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            products.add(new Product(id.toString(), "Product " + i, 100 + random.nextInt(10_000)));
+        }
+        // IDs which can't be packed are still held, just less compactly.
+        products.add(new Product("not-a-product-id", "Ünicode Name", 42));
+        products.add(new Product("SHORTID", null, 7));
+
+        // Act
+        final var hashMapCatalog = ProductCatalog.of(products, 1, Instant.now());
+        final var compactBuilder = ProductCatalog.builder(null, ProductCatalogLayout.COMPACT);
+        products.forEach(product -> compactBuilder.product(product.id(), product.name(), product.usdPrice()));
+        final var compactCatalog = compactBuilder.build(Instant.now());
+
+        final var hashMapBytes = GraphLayout.parseInstance(hashMapCatalog.products()).totalSize();
+        final var compactBytes = GraphLayout.parseInstance(compactCatalog.products()).totalSize();
+        log.info(String.format("catalog of %d products: %d bytes as a hash map, %d bytes compact",
+                products.size(), hashMapBytes, compactBytes));
+
+        // Assert
+        assertTrue(compactBytes * 3 < hashMapBytes);
+        assertEquals(hashMapCatalog.size(), compactCatalog.size());
+        assertEquals(hashMapCatalog.products(), compactCatalog.products());
+        for(final var product : products) {
+            assertEquals(Optional.of(product), compactCatalog.lookup(product.id()));
+            assertEquals(product.usdPrice(), compactCatalog.usdPrice(product.id()));
+        }
+        assertEquals(Optional.empty(), compactCatalog.lookup("AAAAAAAAAAAA"));
+        assertNull(compactCatalog.usdPrice("AAAAAAAAAAAA"));
+
+        final var unchangedBuilder = ProductCatalog.builder(compactCatalog);
+        products.forEach(product -> unchangedBuilder.product(product.id(), product.name(), product.usdPrice()));
+        assertSame(compactCatalog, unchangedBuilder.build(Instant.now()));
+    }
+}
@@ -0,0 +1,44 @@
+package dev.punchcafe.bazaar.products;
+
+import dev.punchcafe.bazaar.config.GatewayConfig;
+import dev.punchcafe.bazaar.gateway.CacheValidators;
+import dev.punchcafe.bazaar.gateway.ConditionalResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductsCacheTests {
+
+    @Test
+    void refreshAsync_sharesOneUpstreamRequestBetweenConcurrentRefreshes() {
+        // Arrange
+        final var client = mock(ApiServiceClient.class);
+        final var fetched = new CompletableFuture<ConditionalResponse<ProductCatalog>>();
+        final var catalog = ProductCatalog.of(List.of(new Product("VqKb4tyj9V6i", "Shield", 1149)), 1, Instant.now());
+        when(client.fetchCatalog(any(), any())).thenReturn(fetched);
+        final var cache = new ProductsCache(
+                client, new GatewayConfig(), mock(ApplicationEventPublisher.class), new SimpleMeterRegistry());
+
+        // Act
+        final var refreshes = List.of(cache.refreshAsync(), cache.refreshAsync(), cache.refreshAsync());
+        fetched.complete(new ConditionalResponse<>(catalog, CacheValidators.NONE));
+
+        // Assert
+        for(final var refresh : refreshes) {
+            assertSame(catalog, refresh.join());
+        }
+        assertSame(catalog, cache.getSnapshot());
+        verify(client, times(1)).fetchCatalog(any(), any());
+    }
+}